@@ -13,6 +13,7 @@ package src;
  */
 
 import src.exceptions.InvalidAmountException;
+import src.models.TimeSource;
 import src.services.AccountManager;
 import src.services.MonthlyInterestApplier;
 import src.ui.AccountsMain;
@@ -34,20 +35,21 @@ public abstract class MainApplication {
 
     /**
      * The main method that runs the application.
-     * It creates an instance of AccountManager, loads accounts,
+     * It creates an instance of AccountManager, which loads the accounts off the event dispatch thread,
      * starts the monthly interest application, and displays the login form.
      *
      * @param args Command line arguments (not used).
      */
     public static void main(String[] args) {
-        // Create the AccountManager instance and load accounts
+        // Serve transaction timestamps from a cached tick instead of reading the clock for every transaction
+        TimeSource.setDefault(TimeSource.ticking());
+
+        // Create the AccountManager instance, which loads the accounts, before the UI starts
+        AccountManager accountManager = AccountManager.getInstance();
+
         EventQueue.invokeLater(new Runnable() {
             @Override
             public void run() {
-                AccountManager accountManager = AccountManager.getInstance();
-                // Load accounts on startup
-                accountManager.loadAccounts();
-
                 // Start monthly interest applier
                 MonthlyInterestApplier interestApplier = new MonthlyInterestApplier();
                 interestApplier.startMonthlyInterestApplication();
@@ -63,7 +65,7 @@ public abstract class MainApplication {
                         frame.addWindowListener(new WindowAdapter() {
                             @Override
                             public void windowClosing(WindowEvent e) {
-                                accountManager.saveAccounts(); // Save accounts on exit
+                                accountManager.shutdown(); // Flush pending saves on exit
                                 System.exit(0);
                             }
                         });
@@ -0,0 +1,149 @@
+package src.benchmarks;
+
+import src.models.Account;
+import src.services.CSVUtility;
+import src.services.ParallelCSVLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the line-by-line CSV loader of {@link CSVUtility} with {@link ParallelCSVLoader}.
+ * <p>
+ * Generates an account CSV file, then times several runs of both loaders over it after a
+ * warm-up run and prints the median time of each. Every 100000th row has an empty balance,
+ * which both loaders must skip, and the two results are checked to be the same accounts.
+ * </p>
+ * <p>
+ * Usage: {@code java src.benchmarks.CSVLoadBenchmark [rows] [runs] [file]}. The defaults are
+ * 500000 rows, 5 runs and a temporary file that is deleted afterwards. Both results are held for
+ * the check, so larger runs need a larger heap ({@code -Xmx}).
+ * </p>
+ */
+public final class CSVLoadBenchmark {
+    private static final String[] ACCOUNT_TYPES = {
+            "Bank Account", "Investment Account", "Checking Account", "Credit Card Account"
+    };
+    private static final int[] PREFIXES = {100000000, 200000000, 300000000, 400000000};
+    private static final int MALFORMED_EVERY = 100000; // Rows with an empty balance
+
+    private CSVLoadBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of rows, the number of timed runs and the CSV file, all optional
+     * @throws IOException if the CSV file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean temporary = args.length < 3;
+        Path csvFile = temporary ? Files.createTempFile("accounts", ".csv") : Paths.get(args[2]);
+
+        try {
+            generate(csvFile, rows);
+            System.out.printf("%d rows, %.1f MB%n", rows, Files.size(csvFile) / (1024.0 * 1024));
+
+            CSVUtility csvUtility = new CSVUtility();
+            ParallelCSVLoader parallelLoader = new ParallelCSVLoader();
+            List<Account> serial = csvUtility.loadAccountsSerially(csvFile); // Warm-up
+            List<Account> parallel = parallelLoader.loadAccounts(csvFile);
+            check(serial, parallel);
+
+            long[] serialNanos = new long[runs];
+            long[] parallelNanos = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                serial = null; // Let the previous results go before timing the next run
+                parallel = null;
+                long start = System.nanoTime();
+                serial = csvUtility.loadAccountsSerially(csvFile);
+                serialNanos[run] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                parallel = parallelLoader.loadAccounts(csvFile);
+                parallelNanos[run] = System.nanoTime() - start;
+            }
+            check(serial, parallel);
+
+            long serialMedian = median(serialNanos);
+            long parallelMedian = median(parallelNanos);
+            System.out.printf("Serial:   %8.1f ms, %10.0f rows/s%n", serialMedian / 1e6, serial.size() * 1e9 / serialMedian);
+            System.out.printf("Parallel: %8.1f ms, %10.0f rows/s (%d cores)%n", parallelMedian / 1e6,
+                    parallel.size() * 1e9 / parallelMedian, Runtime.getRuntime().availableProcessors());
+            System.out.printf("Speedup:  %8.2fx%n", serialMedian / (double) parallelMedian);
+        } finally {
+            if (temporary) {
+                Files.deleteIfExists(csvFile);
+            }
+        }
+    }
+
+    /**
+     * Writes an account CSV file with the given number of rows after the header.
+     */
+    private static void generate(Path csvFile, int rows) throws IOException {
+        Random random = new Random(42);
+        LocalDate firstOpening = LocalDate.of(2015, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("Account Number,Account Holder Name,Balance,Account Type,Is Active,Opening Date,Closing Date\n");
+            StringBuilder row = new StringBuilder(96);
+            for (int i = 0; i < rows; i++) {
+                int type = i % ACCOUNT_TYPES.length;
+                boolean active = random.nextInt(10) != 0;
+                LocalDate opening = firstOpening.plusDays(random.nextInt(3650));
+                row.setLength(0);
+                row.append(PREFIXES[type] + i / ACCOUNT_TYPES.length % 1000000).append(',')
+                        .append("Holder ").append(i).append(',');
+                if (i % MALFORMED_EVERY != MALFORMED_EVERY - 1) {
+                    long cents = random.nextInt(100000000);
+                    row.append(type == 3 ? -cents / 100 : cents / 100).append('.')
+                            .append(cents % 100 / 10).append(cents % 10);
+                }
+                row.append(',').append(ACCOUNT_TYPES[type]).append(',').append(active).append(',')
+                        .append(opening).append(',');
+                if (!active) {
+                    row.append(opening.plusDays(random.nextInt(365)));
+                }
+                writer.write(row.append('\n').toString());
+            }
+        }
+    }
+
+    /**
+     * Checks that both loaders returned the same accounts in the same order.
+     */
+    private static void check(List<Account> serial, List<Account> parallel) {
+        if (serial.size() != parallel.size()) {
+            throw new IllegalStateException("Serial loader read " + serial.size() + " accounts, parallel loader "
+                    + parallel.size());
+        }
+        for (int i = 0; i < serial.size(); i++) {
+            Account expected = serial.get(i);
+            Account actual = parallel.get(i);
+            if (!expected.getAccountNumber().equals(actual.getAccountNumber())
+                    || expected.getBalanceCents() != actual.getBalanceCents()
+                    || !expected.getAccountHolderName().equals(actual.getAccountHolderName())
+                    || expected.isActive() != actual.isActive()
+                    || !expected.getOpeningDate().equals(actual.getOpeningDate())) {
+                throw new IllegalStateException("Loaders disagree on row " + (i + 1) + ": "
+                        + expected.getAccountNumber() + " / " + actual.getAccountNumber());
+            }
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
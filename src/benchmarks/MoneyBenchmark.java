@@ -0,0 +1,140 @@
+package src.benchmarks;
+
+import src.models.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the long-cents arithmetic of {@link Money} with {@code double} amounts formatted with
+ * {@code String.format} and with {@link BigDecimal}.
+ * <p>
+ * Every operation posts an amount to a balance, applies a monthly interest factor every tenth
+ * time and formats the balance for display, which is what logging and showing a transaction
+ * costs. Each path runs over the same amounts after a warm-up run, and the median throughput of
+ * several runs is printed along with the drift of the {@code double} balance from the exact one.
+ * </p>
+ * <p>
+ * Usage: {@code java src.benchmarks.MoneyBenchmark [operations] [runs]}. The defaults are
+ * 2000000 operations and 5 runs.
+ * </p>
+ */
+public final class MoneyBenchmark {
+    private static final double MONTHLY_RATE = 0.025 / 12;
+    private static final BigDecimal MONTHLY_FACTOR = BigDecimal.valueOf(1 + MONTHLY_RATE);
+
+    private MoneyBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of operations and the number of timed runs, both optional
+     */
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Random random = new Random(42);
+        long[] amountsCents = new long[operations];
+        for (int i = 0; i < operations; i++) {
+            amountsCents[i] = random.nextInt(2000000) - 1000000; // -10000.00 to 9999.99
+        }
+        double[] amounts = new double[operations];
+        BigDecimal[] decimalAmounts = new BigDecimal[operations];
+        for (int i = 0; i < operations; i++) {
+            amounts[i] = Money.toAmount(amountsCents[i]);
+            decimalAmounts[i] = BigDecimal.valueOf(amountsCents[i], 2);
+        }
+
+        long sink = runCents(amountsCents) + runDouble(amounts) + runBigDecimal(decimalAmounts); // Warm-up
+        long[] centsNanos = new long[runs];
+        long[] doubleNanos = new long[runs];
+        long[] decimalNanos = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            sink += runCents(amountsCents);
+            centsNanos[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += runDouble(amounts);
+            doubleNanos[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += runBigDecimal(decimalAmounts);
+            decimalNanos[run] = System.nanoTime() - start;
+        }
+
+        long centsMedian = median(centsNanos);
+        print("long cents + Money.appendTo", operations, centsMedian, centsMedian);
+        print("double + String.format", operations, median(doubleNanos), centsMedian);
+        print("BigDecimal", operations, median(decimalNanos), centsMedian);
+        System.out.println("Drift of a double balance after posting 0.10 " + operations + " times: "
+                + driftOfDouble(operations) + " (long cents: 0)");
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static long runCents(long[] amounts) {
+        long balance = 0;
+        long checksum = 0;
+        StringBuilder text = new StringBuilder(24);
+        for (int i = 0; i < amounts.length; i++) {
+            balance += amounts[i];
+            if (i % 10 == 9) {
+                balance = Money.multiply(balance, 1 + MONTHLY_RATE);
+            }
+            text.setLength(0);
+            checksum += Money.appendTo(text, balance).length();
+        }
+        return checksum + balance;
+    }
+
+    private static long runDouble(double[] amounts) {
+        double balance = 0;
+        long checksum = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            balance += amounts[i];
+            if (i % 10 == 9) {
+                balance = Math.round(balance * (1 + MONTHLY_RATE) * 100) / 100.0;
+            }
+            checksum += String.format("%.2f", balance).length();
+        }
+        return checksum + (long) balance;
+    }
+
+    private static long runBigDecimal(BigDecimal[] amounts) {
+        BigDecimal balance = BigDecimal.ZERO.setScale(2);
+        long checksum = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            balance = balance.add(amounts[i]);
+            if (i % 10 == 9) {
+                balance = balance.multiply(MONTHLY_FACTOR).setScale(2, RoundingMode.HALF_UP);
+            }
+            checksum += balance.toPlainString().length();
+        }
+        return checksum + balance.longValue();
+    }
+
+    private static double driftOfDouble(int operations) {
+        double balance = 0;
+        long balanceCents = 0;
+        for (int i = 0; i < operations; i++) {
+            balance += 0.10;
+            balanceCents += 10;
+        }
+        return balance - Money.toAmount(balanceCents);
+    }
+
+    private static void print(String label, int operations, long nanos, long centsNanos) {
+        System.out.printf("%-28s %8.1f ms, %12.0f ops/s, %5.2fx the time of long cents%n", label, nanos / 1e6,
+                operations * 1e9 / nanos, nanos / (double) centsNanos);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,24 @@
+package src.interfaces;
+
+import src.models.Transaction;
+
+import java.util.List;
+
+/**
+ * Interface for the cold tier of the transaction history.
+ * The transaction logs of the accounts keep only their most recent transactions in memory
+ * and read older ones back through this interface. Their date and type indexes still cover
+ * the whole history.
+ */
+public interface TransactionArchive {
+
+    /**
+     * Reads a range of the persisted transactions of an account.
+     *
+     * @param accountNumber the account number
+     * @param fromIndex the index of the first transaction, 0 being the oldest, inclusive
+     * @param toIndex the index of the last transaction, exclusive
+     * @return the transactions, oldest first; fewer than requested if they could not be read
+     */
+    List<Transaction> read(String accountNumber, int fromIndex, int toIndex);
+}
@@ -3,13 +3,14 @@ package src.models;
 import src.exceptions.*;
 import src.interfaces.AccountVerifiable;
 import src.interfaces.TransactionLoggable;
+import src.services.AccountJournal;
 import src.services.AccountManager;
+import src.services.AccountNumberAllocator;
+import src.services.AccountRegistry;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Abstract base class for all account types.
@@ -18,14 +19,13 @@ import java.util.Random;
 public abstract class Account implements AccountVerifiable, TransactionLoggable {
     protected String accountNumber; // Unique account number
     protected String accountHolderName; // Name of the account holder
-    protected double balance; // Current balance of the account
+    protected long balanceCents; // Current balance of the account, in centavos
     protected LocalDate openingDate; // Date when the account was opened
     protected LocalDate closingDate; // Date when the account was closed (if applicable)
     protected boolean isActive; // Status of the account (active or closed)
-    protected List<Transaction> transactions; // List of transactions associated with the account
+    protected final TransactionLog transactionLog = new TransactionLog(this); // Transactions associated with the account
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final Random random = new Random(); // Random number generator
 
     // Static counters for generating unique account numbers
     private static final int BANK_ACCOUNT_PREFIX = 100000000; // Prefix for Bank Accounts
@@ -46,22 +46,39 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
         }
 
         this.accountHolderName = accountHolderName; // Set account holder name
-        this.balance = initialDeposit; // Set initial balance
-        this.openingDate = LocalDate.now(); // Set opening date to current date
+        this.balanceCents = Money.ofAmount(initialDeposit); // Set initial balance
+        this.openingDate = TimeSource.current().today(); // Set opening date to current date
         this.isActive = true; // Set account status to active
-        this.transactions = new ArrayList<>(); // Initialize transaction list
 
         // Generate and set the unique account number
         this.accountNumber = generateAccountNumber();
 
-        // Log initial deposit transaction if applicable
+        // Keep the initial deposit in memory only; AccountManager persists it once the account is added
         if (initialDeposit > 0) {
-            logTransaction("Initial Deposit", initialDeposit, "Account opening deposit", balance);
+            transactionLog.append(TimeSource.current().now(), TransactionType.INITIAL_DEPOSIT, balanceCents,
+                    TransactionDescription.OPENING_DEPOSIT, 0, balanceCents);
         }
     }
 
+    /**
+     * Restores a persisted account under its persisted number. No number is allocated; the
+     * persisted one is marked as used so that it is never handed out again. The account starts
+     * with a zero balance and no transactions, and the caller sets its balance and state.
+     *
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     */
+    protected Account(String accountNumber, String accountHolderName) {
+        this.accountNumber = accountNumber;
+        this.accountHolderName = accountHolderName;
+        this.openingDate = TimeSource.current().today();
+        this.isActive = true;
+        AccountNumberAllocator.getInstance().markUsed(accountNumber);
+    }
+
     /**
      * Generates a unique account number based on the account type.
+     * The number is taken from the unused numbers of the type's range, so it never collides.
      *
      * @return a unique account number
      */
@@ -69,16 +86,16 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
         int accountNumber;
         switch (getAccountType()) {
             case "Bank Account":
-                accountNumber = BANK_ACCOUNT_PREFIX + random.nextInt(1000000); // Random number in the range of 100000000 to 1000000000
+                accountNumber = AccountNumberAllocator.getInstance().allocate(BANK_ACCOUNT_PREFIX); // Unused number from 100000000 to 100999999
                 break;
             case "Investment Account":
-                accountNumber = INVESTMENT_ACCOUNT_PREFIX + random.nextInt(1000000); // Random number in the range of 200000000 to 2000000000
+                accountNumber = AccountNumberAllocator.getInstance().allocate(INVESTMENT_ACCOUNT_PREFIX); // Unused number from 200000000 to 200999999
                 break;
             case "Checking Account":
-                accountNumber = CHECKING_ACCOUNT_PREFIX + random.nextInt(1000000); // Random number in the range of 300000000 to 3000000000
+                accountNumber = AccountNumberAllocator.getInstance().allocate(CHECKING_ACCOUNT_PREFIX); // Unused number from 300000000 to 300999999
                 break;
             case "Credit Card Account":
-                accountNumber = CREDIT_CARD_ACCOUNT_PREFIX + random.nextInt(1000000); // Random number in the range of 400000000 to 4000000000
+                accountNumber = AccountNumberAllocator.getInstance().allocate(CREDIT_CARD_ACCOUNT_PREFIX); // Unused number from 400000000 to 400999999
                 break;
             default:
                 throw new IllegalArgumentException("Unknown account type");
@@ -86,6 +103,27 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
         return String.valueOf(accountNumber);
     }
 
+    // Setter for balance, used when restoring a persisted account
+    public void setBalance(double balance) {
+        this.balanceCents = Money.ofAmount(balance); // Set the balance of the account
+    }
+
+    // Setter for balance in centavos, used when restoring a persisted account without rounding
+    public void setBalanceCents(long balanceCents) {
+        this.balanceCents = balanceCents;
+    }
+
+    // Setter for the number of persisted transactions, used when restoring a persisted account.
+    // The history is then read back from the transaction store when it is needed.
+    public void setArchivedTransactionCount(int count) {
+        transactionLog.restoreArchived(count); // Drop the in-memory history in favour of the persisted one
+    }
+
+    // Marks a transaction as persisted in the transaction store, so that it may leave memory
+    public void markTransactionPersisted(int index) {
+        transactionLog.markPersisted(index);
+    }
+
     // Setter for isActive
     public void setActive(boolean isActive) {
         this.isActive = isActive; // Set the active status of the account
@@ -111,7 +149,11 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toAmount(balanceCents);
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
     }
 
     public LocalDate getOpeningDate() {
@@ -139,12 +181,14 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
             throw new AccountClosedException();
         }
 
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Deposit amount must be positive");
         }
 
-        balance += amount; // Update balance
-        logTransaction("Deposit", amount, "Cash deposit", balance); // Log transaction
+        balanceCents += amountCents; // Update balance
+        logTransaction(TransactionType.DEPOSIT, amountCents, TransactionDescription.CASH_DEPOSIT, 0, balanceCents); // Log transaction
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.DEPOSIT, Money.toAmount(amountCents), this);
     }
 
     /**
@@ -161,16 +205,18 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
             throw new AccountClosedException();
         }
 
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Withdrawal amount must be positive");
         }
 
-        if (amount > balance) {
-            throw new InsufficientFundsException(amount, balance);
+        if (amountCents > balanceCents) {
+            throw new InsufficientFundsException(amount, getBalance());
         }
 
-        balance -= amount; // Update balance
-        logTransaction("Withdrawal", amount, "Cash withdrawal", balance); // Log transaction
+        balanceCents -= amountCents; // Update balance
+        logTransaction(TransactionType.WITHDRAWAL, amountCents, TransactionDescription.CASH_WITHDRAWAL, 0, balanceCents); // Log transaction
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.WITHDRAW, Money.toAmount(amountCents), this);
     }
 
     /**
@@ -197,29 +243,31 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
             throw new AccountClosedException("Destination account is closed");
         }
 
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Transfer amount must be positive");
         }
 
-        if (amount > balance) {
-            throw new InsufficientFundsException(amount, balance);
+        if (amountCents > balanceCents) {
+            throw new InsufficientFundsException(amount, getBalance());
         }
 
-        balance -= amount; // Update balance
-        logTransaction("Transfer Out", amount, "Transfer to account " + destinationAccount.getAccountNumber(), balance); // Log transaction
+        balanceCents -= amountCents; // Update balance
+        logTransfer(TransactionType.TRANSFER_OUT, amountCents, TransactionDescription.TRANSFER_TO, destinationAccount); // Log transaction
 
-        destinationAccount.receiveTransfer(this, amount); // Process transfer to destination account
+        destinationAccount.receiveTransfer(this, amountCents); // Process transfer to destination account
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.TRANSFER, Money.toAmount(amountCents), this, destinationAccount);
     }
 
     /**
      * Receives a transfer from another account.
      *
      * @param sourceAccount the account transferring money
-     * @param amount the amount being transferred
+     * @param amountCents the amount being transferred, in centavos
      */
-    protected void receiveTransfer(Account sourceAccount, double amount) {
-        balance += amount; // Update balance
-        logTransaction("Transfer In", amount, "Transfer from account " + sourceAccount.getAccountNumber(), balance); // Log transaction
+    protected void receiveTransfer(Account sourceAccount, long amountCents) {
+        balanceCents += amountCents; // Update balance
+        logTransfer(TransactionType.TRANSFER_IN, amountCents, TransactionDescription.TRANSFER_FROM, sourceAccount); // Log transaction
     }
 
     /**
@@ -233,16 +281,16 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
             throw new AccountClosedException("Account is already closed");
         }
 
-        if (balance < 0) {
+        if (balanceCents < 0) {
             throw new InsufficientFundsException("Cannot close account with negative balance");
         }
 
         isActive = false; // Set account status to closed
-        closingDate = LocalDate.now(); // Set closing date to current date
-        logTransaction("Account Closed", 0, "Account closed with final balance of ₱" + balance, balance); // Log transaction
+        closingDate = TimeSource.current().today(); // Set closing date to current date
+        logTransaction(TransactionType.ACCOUNT_CLOSED, 0, TransactionDescription.ACCOUNT_CLOSED, balanceCents, balanceCents); // Log transaction
 
-        // Save accounts after closing
-        AccountManager.getInstance().saveAccounts();
+        // Journal the closure instead of rewriting every account
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.CLOSE, 0, this);
     }
 
     /**
@@ -257,23 +305,68 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
 
         isActive = true; // Set account status to active
         closingDate = null; // Clear the closing date
-        logTransaction("Account Reopened", 0, "Account reopened", balance); // Log transaction
+        logTransaction(TransactionType.ACCOUNT_REOPENED, 0, TransactionDescription.ACCOUNT_REOPENED, 0, balanceCents); // Log transaction
 
-        // Save accounts after reopening
-        AccountManager.getInstance().saveAccounts();
+        // Journal the reopening instead of rewriting every account
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.REOPEN, 0, this);
     }
 
     /**
      * Logs a transaction.
      *
      * @param transactionType the type of transaction
-     * @param amount the amount of the transaction
+     * @param amountCents the amount of the transaction, in centavos
      * @param description the description of the transaction
-     * @param balanceAfter the balance after the transaction
+     * @param balanceAfterCents the balance after the transaction, in centavos
+     */
+    protected void logTransaction(String transactionType, long amountCents, String description, long balanceAfterCents) {
+        Transaction transaction = new Transaction(TimeSource.current().now(), transactionType, amountCents, description,
+                balanceAfterCents);
+        persist(transaction);
+    }
+
+    /**
+     * Logs a transaction with a templated description. The description text is not built
+     * until the transaction is displayed.
+     *
+     * @param type the type of transaction
+     * @param amountCents the amount of the transaction, in centavos
+     * @param description the description template
+     * @param argument the argument of the description template
+     * @param balanceAfterCents the balance after the transaction, in centavos
+     */
+    protected void logTransaction(TransactionType type, long amountCents, TransactionDescription description,
+                                  long argument, long balanceAfterCents) {
+        Transaction transaction = new Transaction(TimeSource.current().now(), type, amountCents, description, argument,
+                balanceAfterCents);
+        persist(transaction);
+    }
+
+    /**
+     * Appends a transaction to the log and persists it. The log only lets the transaction leave
+     * memory once the store has written it.
+     */
+    private void persist(Transaction transaction) {
+        int index = transactionLog.size();
+        transactionLog.append(transaction);
+        if (AccountManager.getInstance().recordTransaction(accountNumber, transaction)) {
+            transactionLog.markPersisted(index);
+        }
+    }
+
+    /**
+     * Logs one side of a transfer, keeping the other account number as the description argument.
      */
-    protected void logTransaction(String transactionType, double amount, String description, double balanceAfter) {
-        Transaction transaction = new Transaction(transactionType, amount, description, balanceAfter);
-        transactions.add(transaction); // Add transaction to the list
+    private void logTransfer(TransactionType type, long amountCents, TransactionDescription description,
+                             Account otherAccount) {
+        int otherNumber = AccountRegistry.accountKey(otherAccount.getAccountNumber());
+        if (otherNumber == AccountRegistry.NO_KEY) { // Not a plain number, keep the text
+            String prefix = description == TransactionDescription.TRANSFER_TO
+                    ? "Transfer to account " : "Transfer from account ";
+            logTransaction(type.getLabel(), amountCents, prefix + otherAccount.getAccountNumber(), balanceCents);
+        } else {
+            logTransaction(type, amountCents, description, otherNumber, balanceCents);
+        }
     }
 
     /**
@@ -286,7 +379,7 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
         details.append("Account Number: ").append(accountNumber).append("\n");
         details.append("Account Holder: ").append(accountHolderName).append("\n");
         details.append("Account Type: ").append(getAccountType()).append("\n");
-        details.append("Balance: ₱").append(String.format("%.2f", balance)).append("\n");
+        Money.appendTo(details.append("Balance: ₱"), balanceCents).append("\n");
         details.append("Opening Date: ").append(openingDate.format(DATE_FORMATTER)).append("\n");
         details.append("Status: ").append(isActive ? "Active" : "Closed").append("\n");
 
@@ -318,18 +411,32 @@ public abstract class Account implements AccountVerifiable, TransactionLoggable
         history.append("Transaction History for Account ").append(accountNumber).append("\n");
         history.append("----------------------------------------\n");
 
-        if (transactions.isEmpty()) {
+        if (transactionLog.isEmpty()) {
             history.append("No transactions found\n");
         } else {
-            for (Transaction transaction : transactions) {
-                history.append(transaction.toString()).append("\n");
+            for (int i = 0; i < transactionLog.size(); i++) {
+                history.append(transactionLog.get(i).toString()).append("\n");
             }
         }
 
         return history.toString(); // Return transaction history as a string
     }
 
+    /**
+     * Gets the transactions logged so far as a read-only view that does not copy the history.
+     *
+     * @return the transactions, oldest first
+     */
     public List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        return transactionLog.asList();
+    }
+
+    /**
+     * Gets the transaction log of the account for reading.
+     *
+     * @return the transaction log
+     */
+    public TransactionLog getTransactionLog() {
+        return transactionLog;
     }
 }
\ No newline at end of file
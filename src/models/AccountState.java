@@ -0,0 +1,92 @@
+package src.models;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Immutable copy of an account's state at one point in time, used by snapshots for reporting
+ */
+public final class AccountState {
+    private final String accountNumber;
+    private final String accountHolderName;
+    private final String accountType;
+    private final long balanceCents;
+    private final LocalDate openingDate;
+    private final LocalDate closingDate;
+    private final boolean isActive;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private AccountState(Account account) {
+        this.accountNumber = account.getAccountNumber();
+        this.accountHolderName = account.getAccountHolderName();
+        this.accountType = account.getAccountType();
+        this.balanceCents = account.getBalanceCents();
+        this.openingDate = account.getOpeningDate();
+        this.closingDate = account.getClosingDate();
+        this.isActive = account.isActive();
+    }
+
+    /**
+     * Captures the current state of an account
+     *
+     * @param account the account to capture
+     * @return the captured state
+     */
+    public static AccountState of(Account account) {
+        return new AccountState(account);
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getAccountHolderName() {
+        return accountHolderName;
+    }
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public double getBalance() {
+        return Money.toAmount(balanceCents);
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    public LocalDate getOpeningDate() {
+        return openingDate;
+    }
+
+    public LocalDate getClosingDate() {
+        return closingDate;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    /**
+     * Gets the captured account details in the same format as {@link Account#getAccountDetails()}
+     *
+     * @return the account details
+     */
+    public String getAccountDetails() {
+        StringBuilder details = new StringBuilder();
+        details.append("Account Number: ").append(accountNumber).append("\n");
+        details.append("Account Holder: ").append(accountHolderName).append("\n");
+        details.append("Account Type: ").append(accountType).append("\n");
+        Money.appendTo(details.append("Balance: ₱"), balanceCents).append("\n");
+        details.append("Opening Date: ").append(openingDate.format(DATE_FORMATTER)).append("\n");
+        details.append("Status: ").append(isActive ? "Active" : "Closed").append("\n");
+
+        if (!isActive && closingDate != null) {
+            details.append("Closing Date: ").append(closingDate.format(DATE_FORMATTER)).append("\n");
+        }
+
+        return details.toString();
+    }
+}
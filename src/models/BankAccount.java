@@ -7,9 +7,9 @@ import src.exceptions.TransactionLimitException;
  * Represents a standard bank account
  */
 public class BankAccount extends Account {
-    private static final double DAILY_WITHDRAWAL_LIMIT = 1000.0;
-    private static final double MIN_BALANCE = 100.0;
-    private double dailyWithdrawalAmount;
+    private static final long DAILY_WITHDRAWAL_LIMIT = 100000; // ₱1,000.00 in cents
+    private static final long MIN_BALANCE = 10000; // ₱100.00 in cents
+    private long dailyWithdrawalAmount; // In cents
 
     /**
      * Creates a new bank account with the specified details
@@ -20,7 +20,17 @@ public class BankAccount extends Account {
      */
     public BankAccount(String accountHolderName, double initialDeposit) throws InvalidAmountException {
         super(accountHolderName, initialDeposit);
-        this.dailyWithdrawalAmount = 0.0;
+        this.dailyWithdrawalAmount = 0;
+    }
+
+    /**
+     * Restores a persisted bank account under its persisted number
+     *
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     */
+    public BankAccount(String accountNumber, String accountHolderName) {
+        super(accountNumber, accountHolderName);
     }
 
     /**
@@ -29,7 +39,7 @@ public class BankAccount extends Account {
      * @return the daily withdrawal limit
      */
     public double getDailyWithdrawalLimit() {
-        return DAILY_WITHDRAWAL_LIMIT;
+        return Money.toAmount(DAILY_WITHDRAWAL_LIMIT);
     }
 
     /**
@@ -38,7 +48,7 @@ public class BankAccount extends Account {
      * @return the minimum balance
      */
     public double getMinimumBalance() {
-        return MIN_BALANCE;
+        return Money.toAmount(MIN_BALANCE);
     }
 
     /**
@@ -51,35 +61,36 @@ public class BankAccount extends Account {
     @Override
     public void logTransaction(String transactionType, double amount, String description) {
         // Call the superclass method to log the transaction
-        super.logTransaction(transactionType, amount, description, balance);
+        super.logTransaction(transactionType, Money.ofAmount(amount), description, balanceCents);
     }
 
     @Override
     public void withdraw(double amount) throws Exception {
-        if (amount > DAILY_WITHDRAWAL_LIMIT) {
-            throw new TransactionLimitException(amount, DAILY_WITHDRAWAL_LIMIT);
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents > DAILY_WITHDRAWAL_LIMIT) {
+            throw new TransactionLimitException(amount, getDailyWithdrawalLimit());
         }
 
-        if (dailyWithdrawalAmount + amount > DAILY_WITHDRAWAL_LIMIT) {
-            double remainingLimit = DAILY_WITHDRAWAL_LIMIT - dailyWithdrawalAmount;
+        if (dailyWithdrawalAmount + amountCents > DAILY_WITHDRAWAL_LIMIT) {
+            long remainingLimit = DAILY_WITHDRAWAL_LIMIT - dailyWithdrawalAmount;
             throw new TransactionLimitException(
-                    String.format("Daily withdrawal limit exceeded. Remaining limit: ₱%.2f", remainingLimit));
+                    "Daily withdrawal limit exceeded. Remaining limit: ₱" + Money.format(remainingLimit));
         }
 
-        if (balance - amount < MIN_BALANCE) {
+        if (balanceCents - amountCents < MIN_BALANCE) {
             throw new TransactionLimitException(
-                    String.format("Withdrawal would drop balance below minimum (₱%.2f)", MIN_BALANCE));
+                    "Withdrawal would drop balance below minimum (₱" + Money.format(MIN_BALANCE) + ")");
         }
 
         super.withdraw(amount);
-        dailyWithdrawalAmount += amount;
+        dailyWithdrawalAmount += amountCents;
     }
 
     /**
      * Resets the daily withdrawal amount (would be called at the end of each day)
      */
     public void resetDailyWithdrawalAmount() {
-        dailyWithdrawalAmount = 0.0;
+        dailyWithdrawalAmount = 0;
     }
 
     @Override
@@ -89,6 +100,6 @@ public class BankAccount extends Account {
 
     @Override
     public boolean verifyAccountDetails() {
-        return super.verifyAccountDetails() && balance >= MIN_BALANCE;
+        return super.verifyAccountDetails() && balanceCents >= MIN_BALANCE;
     }
 }
@@ -2,12 +2,14 @@ package src.models;
 
 import src.exceptions.InvalidAmountException;
 import src.exceptions.TransactionLimitException;
+import src.services.AccountJournal;
+import src.services.AccountManager;
 
 /**
  * Represents a checking account with transaction limits
  */
 public class CheckingAccount extends Account {
-    private static final double TRANSACTION_FEE = 1.5;
+    private static final long TRANSACTION_FEE = 150; // ₱1.50 in cents
     private static final int FREE_TRANSACTIONS_PER_MONTH = 5;
     private int transactionsThisMonth;
 
@@ -23,13 +25,23 @@ public class CheckingAccount extends Account {
         this.transactionsThisMonth = 0;
     }
 
+    /**
+     * Restores a persisted checking account under its persisted number
+     *
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     */
+    public CheckingAccount(String accountNumber, String accountHolderName) {
+        super(accountNumber, accountHolderName);
+    }
+
     /**
      * Gets the transaction fee
      *
      * @return the transaction fee
      */
     public double getTransactionFee() {
-        return TRANSACTION_FEE;
+        return Money.toAmount(TRANSACTION_FEE);
     }
 
     /**
@@ -53,37 +65,37 @@ public class CheckingAccount extends Account {
     @Override
     public void deposit(double amount) throws Exception {
         super.deposit(amount);
-        applyTransactionFee("Deposit");
+        applyTransactionFee(TransactionDescription.DEPOSIT_FEE);
     }
 
     @Override
     public void withdraw(double amount) throws Exception {
         super.withdraw(amount);
-        applyTransactionFee("Withdrawal");
+        applyTransactionFee(TransactionDescription.WITHDRAWAL_FEE);
     }
 
     @Override
     public void transfer(Account destinationAccount, double amount) throws Exception {
         super.transfer(destinationAccount, amount);
-        applyTransactionFee("Transfer");
+        applyTransactionFee(TransactionDescription.TRANSFER_FEE);
     }
 
     /**
      * Applies a transaction fee if the free transaction limit has been exceeded
      */
-    private void applyTransactionFee(String transactionType) throws Exception {
+    private void applyTransactionFee(TransactionDescription feeDescription) throws Exception {
         transactionsThisMonth++;
 
         if (transactionsThisMonth > FREE_TRANSACTIONS_PER_MONTH) {
-            if (balance < TRANSACTION_FEE) {
+            if (balanceCents < TRANSACTION_FEE) {
                 throw new TransactionLimitException(
-                        String.format("Insufficient funds to cover transaction fee of ₱%.2f", TRANSACTION_FEE));
+                        "Insufficient funds to cover transaction fee of ₱" + Money.format(TRANSACTION_FEE));
             }
 
-            balance -= TRANSACTION_FEE;
-            logTransaction("Fee", TRANSACTION_FEE,
-                    String.format("Transaction fee for %s (transaction #%d)",
-                            transactionType, transactionsThisMonth), balance);
+            balanceCents -= TRANSACTION_FEE;
+            logTransaction(TransactionType.FEE, TRANSACTION_FEE, feeDescription, transactionsThisMonth, balanceCents);
+            AccountManager.getInstance().recordChange(AccountJournal.Operation.WITHDRAW,
+                    Money.toAmount(TRANSACTION_FEE), this);
         }
     }
 
@@ -96,7 +108,7 @@ public class CheckingAccount extends Account {
 
     @Override
     public void logTransaction(String transactionType, double amount, String description) {
-        super.logTransaction(transactionType, amount, description, balance);
+        super.logTransaction(transactionType, Money.ofAmount(amount), description, balanceCents);
     }
 
     @Override
@@ -3,15 +3,18 @@ package src.models;
 import src.exceptions.InvalidAmountException;
 import src.exceptions.InsufficientFundsException;
 import src.exceptions.TransactionLimitException;
+import src.services.AccountJournal;
+import src.services.AccountManager;
 
 /**
  * Represents a credit card account with a credit limit
  */
 public class CreditCardAccount extends Account {
-    private final double creditLimit;
+    private final long creditLimit; // In cents
     private double interestRate;
     private static final double DEFAULT_INTEREST_RATE = 18.99;
     private static final double MIN_PAYMENT_PERCENTAGE = 0.02; // 2% of balance
+    private static final long MIN_PAYMENT = 2000; // ₱20.00 in cents
     
     /**
      * Creates a new credit card account with the specified details
@@ -26,7 +29,26 @@ public class CreditCardAccount extends Account {
             throw new InvalidAmountException("Credit limit must be positive");
         }
         
-        this.creditLimit = creditLimit;
+        this.creditLimit = Money.ofAmount(creditLimit);
+        this.interestRate = DEFAULT_INTEREST_RATE;
+    }
+
+    /**
+     * Restores a persisted credit card account under its persisted number
+     *
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     * @param creditLimit the credit limit
+     * @throws InvalidAmountException if the credit limit is invalid
+     */
+    public CreditCardAccount(String accountNumber, String accountHolderName, double creditLimit)
+            throws InvalidAmountException {
+        super(accountNumber, accountHolderName);
+        if (creditLimit <= 0) {
+            throw new InvalidAmountException("Credit limit must be positive");
+        }
+
+        this.creditLimit = Money.ofAmount(creditLimit);
         this.interestRate = DEFAULT_INTEREST_RATE;
     }
     
@@ -36,7 +58,7 @@ public class CreditCardAccount extends Account {
      * @return the credit limit
      */
     public double getCreditLimit() {
-        return creditLimit;
+        return Money.toAmount(creditLimit);
     }
     
     /**
@@ -56,8 +78,8 @@ public class CreditCardAccount extends Account {
     public void setInterestRate(double interestRate) {
         if (interestRate >= 0) {
             this.interestRate = interestRate;
-            logTransaction("Interest Rate Change", 0, 
-                    String.format("Interest rate changed to %.2f%%", interestRate), balance);
+            logTransaction(TransactionType.INTEREST_RATE_CHANGE, 0, TransactionDescription.INTEREST_RATE_CHANGE,
+                    Double.doubleToLongBits(interestRate), balanceCents);
         }
     }
     
@@ -67,7 +89,11 @@ public class CreditCardAccount extends Account {
      * @return the available credit
      */
     public double getAvailableCredit() {
-        return creditLimit + balance; // balance is negative for credit card debt
+        return Money.toAmount(availableCreditCents());
+    }
+
+    private long availableCreditCents() {
+        return creditLimit + balanceCents; // balance is negative for credit card debt
     }
     
     /**
@@ -76,7 +102,7 @@ public class CreditCardAccount extends Account {
      * @return the current debt amount
      */
     public double getCurrentDebt() {
-        return -balance; // Convert to positive for clearer understanding
+        return Money.toAmount(-balanceCents); // Convert to positive for clearer understanding
     }
     
     /**
@@ -85,29 +111,33 @@ public class CreditCardAccount extends Account {
      * @return the minimum payment amount
      */
     public double getMinimumPaymentDue() {
-        return Math.max(getCurrentDebt() * MIN_PAYMENT_PERCENTAGE, 20.0); // At least ₱20 or 2% of balance
+        long percentage = Money.multiply(-balanceCents, MIN_PAYMENT_PERCENTAGE);
+        return Money.toAmount(Math.max(percentage, MIN_PAYMENT)); // At least ₱20 or 2% of balance
     }
     
     @Override
     public void deposit(double amount) throws Exception {
         // For credit cards, deposit means making a payment
         super.deposit(amount);
-        logTransaction("Payment", amount, "Credit card payment received", balance);
+        logTransaction(TransactionType.PAYMENT, Money.ofAmount(amount), TransactionDescription.CARD_PAYMENT_RECEIVED, 0,
+                balanceCents);
     }
     
     @Override
     public void withdraw(double amount) throws Exception {
         // For credit cards, withdraw means making a purchase (charging the card)
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Purchase amount must be positive");
         }
         
-        if (amount > getAvailableCredit()) {
+        if (amountCents > availableCreditCents()) {
             throw new TransactionLimitException(amount, getAvailableCredit());
         }
         
-        balance -= amount; // Decrease balance (increase debt)
-        logTransaction("Purchase", amount, "Credit card purchase", balance);
+        balanceCents -= amountCents; // Decrease balance (increase debt)
+        logTransaction(TransactionType.PURCHASE, amountCents, TransactionDescription.CARD_PURCHASE, 0, balanceCents);
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.WITHDRAW, Money.toAmount(amountCents), this);
     }
     
     /**
@@ -118,16 +148,18 @@ public class CreditCardAccount extends Account {
      * @throws Exception if the purchase cannot be processed
      */
     public void makePurchase(double amount, String description) throws Exception {
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Purchase amount must be positive");
         }
         
-        if (amount > getAvailableCredit()) {
+        if (amountCents > availableCreditCents()) {
             throw new TransactionLimitException(amount, getAvailableCredit());
         }
         
-        balance -= amount; // Decrease balance (increase debt)
-        logTransaction("Purchase", amount, description, balance);
+        balanceCents -= amountCents; // Decrease balance (increase debt)
+        logTransaction(TransactionType.PURCHASE.getLabel(), amountCents, description, balanceCents);
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.WITHDRAW, Money.toAmount(amountCents), this);
     }
     
     /**
@@ -137,33 +169,37 @@ public class CreditCardAccount extends Account {
      * @throws Exception if the payment cannot be processed
      */
     public void makePayment(double amount) throws Exception {
-        if (amount <= 0) {
+        long amountCents = Money.ofAmount(amount);
+        if (amountCents <= 0) {
             throw new InvalidAmountException("Payment amount must be positive");
         }
         
-        if (amount > getCurrentDebt()) {
+        if (amountCents > -balanceCents) {
             throw new InvalidAmountException("Payment amount exceeds current debt");
         }
         
-        balance += amount; // Increase balance (decrease debt)
-        logTransaction("Payment", amount, "Credit card payment", balance);
+        balanceCents += amountCents; // Increase balance (decrease debt)
+        logTransaction(TransactionType.PAYMENT, amountCents, TransactionDescription.CARD_PAYMENT, 0, balanceCents);
+        AccountManager.getInstance().recordChange(AccountJournal.Operation.DEPOSIT, Money.toAmount(amountCents), this);
     }
     
     /**
      * Applies monthly interest to the account
      */
     public void applyMonthlyInterest() {
-        if (balance < 0) { // Only apply interest if there's a debt
-            double interestAmount = -(balance) * (interestRate / 100 / 12); // Monthly interest
-            balance -= interestAmount; // Decrease balance (increase debt)
-            logTransaction("Interest Charge", interestAmount, 
-                    String.format("Monthly interest at %.2f%%", interestRate), balance);
+        if (balanceCents < 0) { // Only apply interest if there's a debt
+            long interestAmount = Money.multiply(-balanceCents, interestRate / 100 / 12); // Monthly interest
+            balanceCents -= interestAmount; // Decrease balance (increase debt)
+            logTransaction(TransactionType.INTEREST_CHARGE, interestAmount, TransactionDescription.MONTHLY_INTEREST,
+                    Double.doubleToLongBits(interestRate), balanceCents);
+            AccountManager.getInstance().recordChange(AccountJournal.Operation.INTEREST,
+                    Money.toAmount(interestAmount), this);
         }
     }
 
     @Override
     public void logTransaction(String transactionType, double amount, String description) {
-        super.logTransaction(transactionType, amount, description, balance);
+        super.logTransaction(transactionType, Money.ofAmount(amount), description, balanceCents);
     }
 
     @Override
@@ -2,6 +2,8 @@ package src.models;
 
 import src.exceptions.InvalidAmountException;
 import src.interfaces.InterestBearing;
+import src.services.AccountJournal;
+import src.services.AccountManager;
 
 /**
  * Represents an investment account with interest
@@ -9,7 +11,7 @@ import src.interfaces.InterestBearing;
 public class InvestmentAccount extends Account implements InterestBearing {
     private double interestRate;
     private static final double DEFAULT_INTEREST_RATE = 2.5; // 2.5%
-    private static final double MIN_BALANCE_FOR_INTEREST = 1000.0;
+    private static final long MIN_BALANCE_FOR_INTEREST = 100000; // ₱1,000.00 in cents
     
     /**
      * Creates a new investment account with the specified details
@@ -22,6 +24,17 @@ public class InvestmentAccount extends Account implements InterestBearing {
         super(accountHolderName, initialDeposit);
         this.interestRate = DEFAULT_INTEREST_RATE;
     }
+
+    /**
+     * Restores a persisted investment account under its persisted number
+     *
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     */
+    public InvestmentAccount(String accountNumber, String accountHolderName) {
+        super(accountNumber, accountHolderName);
+        this.interestRate = DEFAULT_INTEREST_RATE;
+    }
     
     @Override
     public double getInterestRate() {
@@ -32,19 +45,21 @@ public class InvestmentAccount extends Account implements InterestBearing {
     public void setInterestRate(double rate) {
         if (rate >= 0) {
             this.interestRate = rate;
-            logTransaction("Interest Rate Change", 0, 
-                    String.format("Interest rate changed to %.2f%%", rate), balance);
+            logTransaction(TransactionType.INTEREST_RATE_CHANGE, 0, TransactionDescription.INTEREST_RATE_CHANGE,
+                    Double.doubleToLongBits(rate), balanceCents);
         }
     }
     
     @Override
     public double applyInterest() {
-        if (balance >= MIN_BALANCE_FOR_INTEREST) {
-            double interestAmount = balance * (interestRate / 100 / 12); // Monthly interest
-            balance += interestAmount;
-            logTransaction("Interest", interestAmount, 
-                    String.format("Monthly interest at %.2f%%", interestRate), balance);
-            return interestAmount;
+        if (balanceCents >= MIN_BALANCE_FOR_INTEREST) {
+            long interestAmount = Money.multiply(balanceCents, interestRate / 100 / 12); // Monthly interest
+            balanceCents += interestAmount;
+            logTransaction(TransactionType.INTEREST, interestAmount, TransactionDescription.MONTHLY_INTEREST,
+                    Double.doubleToLongBits(interestRate), balanceCents);
+            AccountManager.getInstance().recordChange(AccountJournal.Operation.INTEREST,
+                    Money.toAmount(interestAmount), this);
+            return Money.toAmount(interestAmount);
         }
         return 0;
     }
@@ -55,12 +70,12 @@ public class InvestmentAccount extends Account implements InterestBearing {
      * @return the minimum balance
      */
     public double getMinBalanceForInterest() {
-        return MIN_BALANCE_FOR_INTEREST;
+        return Money.toAmount(MIN_BALANCE_FOR_INTEREST);
     }
 
     @Override
     public void logTransaction(String transactionType, double amount, String description) {
-        super.logTransaction(transactionType, amount, description, balance);
+        super.logTransaction(transactionType, Money.ofAmount(amount), description, balanceCents);
     }
 
     @Override
@@ -0,0 +1,81 @@
+package src.models;
+
+/**
+ * Fixed-point money arithmetic on whole centavos held in a {@code long}.
+ * <p>
+ * Balances, amounts and limits are kept as cents so that additions and subtractions are exact
+ * and never drift the way repeated {@code double} arithmetic does. Amounts coming from the UI
+ * or from files are converted once with {@link #ofAmount(double)}; rates are applied with
+ * {@link #multiply(long, double)}, which rounds to the nearest cent. Formatting writes the
+ * digits directly instead of going through {@code String.format}.
+ * </p>
+ */
+public final class Money {
+    private static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+        // Static helpers only
+    }
+
+    /**
+     * Converts an amount in pesos to cents, rounding to the nearest cent.
+     *
+     * @param amount the amount in pesos
+     * @return the amount in cents
+     */
+    public static long ofAmount(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    /**
+     * Converts cents to an amount in pesos.
+     *
+     * @param cents the amount in cents
+     * @return the amount in pesos
+     */
+    public static double toAmount(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /**
+     * Multiplies an amount by a factor such as a monthly interest rate, rounding half up to the nearest cent.
+     *
+     * @param cents the amount in cents
+     * @param factor the factor
+     * @return the product in cents
+     */
+    public static long multiply(long cents, double factor) {
+        return Math.round(cents * factor);
+    }
+
+    /**
+     * Formats cents with two decimals, such as {@code -1234.50}.
+     * Gives the same text as {@code String.format("%.2f", toAmount(cents))}.
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * Appends cents with two decimals to a builder without creating intermediate strings.
+     *
+     * @param builder the builder to append to
+     * @param cents the amount in cents
+     * @return the builder
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long cents) {
+        long units = cents / CENTS_PER_UNIT;
+        int fraction = (int) Math.abs(cents % CENTS_PER_UNIT);
+        if (cents < 0) {
+            builder.append('-');
+            units = -units; // Cannot overflow: |cents / 100| is far below Long.MAX_VALUE
+        }
+        return builder.append(units)
+                .append('.')
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+    }
+}
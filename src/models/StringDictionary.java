@@ -0,0 +1,75 @@
+package src.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns small integer codes to strings so that repeated strings are stored once.
+ * Codes are handed out in order starting at 0 and never change.
+ */
+final class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final int maxSize;
+    private String[] values = new String[16];
+    private int size;
+
+    /**
+     * Creates a dictionary.
+     *
+     * @param maxSize the largest number of distinct strings the dictionary may hold
+     */
+    StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the code of a string, adding the string if it is new.
+     *
+     * @param value the string
+     * @return the code of the string
+     * @throws IllegalStateException if the dictionary is full
+     */
+    synchronized int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == maxSize) {
+            throw new IllegalStateException("Dictionary cannot hold more than " + maxSize + " strings");
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Gets the code of a string, adding the string if it is new and there is room for it.
+     *
+     * @param value the string
+     * @return the code of the string, or -1 if it is new and the dictionary is full
+     */
+    synchronized int tryEncode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return size == maxSize ? -1 : encode(value);
+    }
+
+    /**
+     * Gets the string of a code.
+     *
+     * @param code a code returned by {@link #encode(String)}
+     * @return the string
+     */
+    synchronized String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("Code: " + code + ", Size: " + size);
+        }
+        return values[code];
+    }
+}
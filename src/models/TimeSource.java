@@ -0,0 +1,232 @@
+package src.models;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Source of the current local time for accounts and transactions.
+ * <p>
+ * Time is read as local milliseconds, the same scale {@link TransactionLog} stores. Three
+ * sources are available:
+ * </p>
+ * <ul>
+ *     <li>{@link #system()} reads the system clock on every call and caches the zone offset
+ *     until the next daylight saving transition, so there is no time zone lookup per call.</li>
+ *     <li>{@link #ticking()} serves a value that a daemon thread refreshes once a second, so
+ *     live paths never read the system clock themselves. Transaction timestamps are shown to
+ *     the second, so they lose nothing.</li>
+ *     <li>{@link #pinned(LocalDateTime)} always returns the same instant, for batch runs,
+ *     replays and benchmarks.</li>
+ * </ul>
+ * <p>
+ * {@link #current()} is the source the models use. It is the default source, set with
+ * {@link #setDefault(TimeSource)}, unless the calling thread pinned its own with
+ * {@link #pinCurrentThread(LocalDateTime)}; pins do not affect other threads.
+ * </p>
+ */
+public abstract class TimeSource {
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private static final TimeSource SYSTEM = new SystemTimeSource();
+    private static volatile TimeSource defaultSource = SYSTEM;
+    private static final ThreadLocal<TimeSource> threadSource = new ThreadLocal<>();
+
+    /**
+     * Gets the current local time in milliseconds.
+     *
+     * @return milliseconds since 1970-01-01T00:00 of the local calendar, see
+     *         {@link TransactionLog#toEpochMillis(LocalDateTime)}
+     */
+    public abstract long currentMillis();
+
+    /**
+     * Gets the current local date-time.
+     *
+     * @return the current local date-time
+     */
+    public LocalDateTime now() {
+        return TransactionLog.toDateTime(currentMillis());
+    }
+
+    /**
+     * Gets the current local date.
+     *
+     * @return the current local date
+     */
+    public LocalDate today() {
+        return LocalDate.ofEpochDay(Math.floorDiv(currentMillis(), MILLIS_PER_DAY));
+    }
+
+    /**
+     * Gets the source used by the calling thread.
+     *
+     * @return the thread's pinned source, or the default source
+     */
+    public static TimeSource current() {
+        TimeSource source = threadSource.get();
+        return source != null ? source : defaultSource;
+    }
+
+    /**
+     * Replaces the source used by all threads that have not pinned their own.
+     *
+     * @param source the new default source
+     */
+    public static void setDefault(TimeSource source) {
+        defaultSource = source;
+    }
+
+    /**
+     * Pins the time of the calling thread until the returned pin is closed. Pins may be nested;
+     * closing a pin restores the source that was in use before it.
+     *
+     * @param time the time the thread should see
+     * @return the pin, to be closed when the batch is done
+     */
+    public static Pin pinCurrentThread(LocalDateTime time) {
+        Pin pin = new Pin(threadSource.get());
+        threadSource.set(pinned(time));
+        return pin;
+    }
+
+    /**
+     * Gets the source that reads the system clock.
+     *
+     * @return the system source
+     */
+    public static TimeSource system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Gets the source that serves a cached tick refreshed once a second. The ticking thread is
+     * started on first use.
+     *
+     * @return the ticking source
+     */
+    public static TimeSource ticking() {
+        return TickingTimeSource.INSTANCE;
+    }
+
+    /**
+     * Creates a source that always returns the same time.
+     *
+     * @param time the time to return
+     * @return the pinned source
+     */
+    public static TimeSource pinned(LocalDateTime time) {
+        return new PinnedTimeSource(TransactionLog.toEpochMillis(time));
+    }
+
+    /**
+     * Restores the previous source of a thread when closed.
+     */
+    public static final class Pin implements AutoCloseable {
+        private final TimeSource previous;
+
+        private Pin(TimeSource previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                threadSource.remove();
+            } else {
+                threadSource.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Reads the system clock and shifts it by a cached zone offset.
+     */
+    private static final class SystemTimeSource extends TimeSource {
+        private volatile OffsetPeriod period;
+
+        @Override
+        public long currentMillis() {
+            long utcMillis = System.currentTimeMillis();
+            OffsetPeriod current = period;
+            if (current == null || utcMillis < current.start || utcMillis >= current.end) {
+                current = OffsetPeriod.at(utcMillis);
+                period = current;
+            }
+            return utcMillis + current.offsetMillis;
+        }
+    }
+
+    /**
+     * The zone offset between two daylight saving transitions.
+     */
+    private static final class OffsetPeriod {
+        private final long start;
+        private final long end;
+        private final long offsetMillis;
+
+        private OffsetPeriod(long start, long end, long offsetMillis) {
+            this.start = start;
+            this.end = end;
+            this.offsetMillis = offsetMillis;
+        }
+
+        static OffsetPeriod at(long utcMillis) {
+            Instant instant = Instant.ofEpochMilli(utcMillis);
+            ZoneRules rules = ZoneId.systemDefault().getRules();
+            ZoneOffsetTransition previous = rules.previousTransition(instant);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            long start = previous != null ? previous.toEpochSecond() * 1000 : Long.MIN_VALUE;
+            long end = next != null ? next.toEpochSecond() * 1000 : Long.MAX_VALUE;
+            return new OffsetPeriod(start, end, rules.getOffset(instant).getTotalSeconds() * 1000L);
+        }
+    }
+
+    /**
+     * Serves the system time as refreshed by a daemon thread once a second.
+     */
+    private static final class TickingTimeSource extends TimeSource {
+        private static final TickingTimeSource INSTANCE = new TickingTimeSource();
+        private static final long TICK_MILLIS = 1000;
+
+        private volatile long tick = SYSTEM.currentMillis();
+
+        private TickingTimeSource() {
+            Thread ticker = new Thread(() -> {
+                while (true) {
+                    long now = SYSTEM.currentMillis();
+                    tick = now;
+                    // Wake up on the next second boundary, so the tick never lags a second behind
+                    LockSupport.parkNanos((TICK_MILLIS - Math.floorMod(now, TICK_MILLIS)) * 1000000);
+                }
+            }, "time-source-tick");
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        @Override
+        public long currentMillis() {
+            return tick;
+        }
+    }
+
+    /**
+     * Always returns the same time.
+     */
+    private static final class PinnedTimeSource extends TimeSource {
+        private final long millis;
+
+        PinnedTimeSource(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long currentMillis() {
+            return millis;
+        }
+    }
+}
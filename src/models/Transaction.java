@@ -9,9 +9,11 @@ import java.time.format.DateTimeFormatter;
 public class Transaction {
     private final LocalDateTime timestamp;
     private final String type;
-    private final double amount;
-    private final String description;
-    private final double balanceAfterTransaction;
+    private final long amountCents;
+    private final long balanceAfterCents;
+    private final TransactionDescription descriptionTemplate;
+    private final long descriptionArgument;
+    private String description; // Built from the template on first use
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
@@ -24,11 +26,62 @@ public class Transaction {
      * @param balanceAfterTransaction the account balance after this transaction
      */
     public Transaction(String type, double amount, String description, double balanceAfterTransaction) {
-        this.timestamp = LocalDateTime.now();
+        this(TimeSource.current().now(), type, amount, description, balanceAfterTransaction);
+    }
+
+    /**
+     * Creates a transaction with a known timestamp, used when reading persisted transactions
+     *
+     * @param timestamp the time the transaction took place
+     * @param type the transaction type (deposit, withdrawal, etc.)
+     * @param amount the amount of the transaction
+     * @param description the description of the transaction
+     * @param balanceAfterTransaction the account balance after this transaction
+     */
+    public Transaction(LocalDateTime timestamp, String type, double amount, String description,
+                       double balanceAfterTransaction) {
+        this(timestamp, type, Money.ofAmount(amount), description, Money.ofAmount(balanceAfterTransaction));
+    }
+
+    /**
+     * Creates a transaction from amounts in cents
+     *
+     * @param timestamp the time the transaction took place
+     * @param type the transaction type (deposit, withdrawal, etc.)
+     * @param amountCents the amount of the transaction, in cents
+     * @param description the description of the transaction
+     * @param balanceAfterCents the account balance after this transaction, in cents
+     */
+    public Transaction(LocalDateTime timestamp, String type, long amountCents, String description,
+                       long balanceAfterCents) {
+        this.timestamp = timestamp;
         this.type = type;
-        this.amount = amount;
+        this.amountCents = amountCents;
+        this.balanceAfterCents = balanceAfterCents;
+        this.descriptionTemplate = TransactionDescription.TEXT;
+        this.descriptionArgument = 0;
         this.description = description;
-        this.balanceAfterTransaction = balanceAfterTransaction;
+    }
+
+    /**
+     * Creates a transaction with a templated description. The description text is only built
+     * when it is read.
+     *
+     * @param timestamp the time the transaction took place
+     * @param type the transaction type
+     * @param amountCents the amount of the transaction, in cents
+     * @param descriptionTemplate the description template, not {@link TransactionDescription#TEXT}
+     * @param descriptionArgument the argument of the template
+     * @param balanceAfterCents the account balance after this transaction, in cents
+     */
+    public Transaction(LocalDateTime timestamp, TransactionType type, long amountCents,
+                       TransactionDescription descriptionTemplate, long descriptionArgument, long balanceAfterCents) {
+        this.timestamp = timestamp;
+        this.type = type.getLabel();
+        this.amountCents = amountCents;
+        this.balanceAfterCents = balanceAfterCents;
+        this.descriptionTemplate = descriptionTemplate;
+        this.descriptionArgument = descriptionArgument;
     }
     
     /**
@@ -48,6 +101,15 @@ public class Transaction {
     public String getType() {
         return type;
     }
+
+    /**
+     * Gets the type of the transaction as a compact type
+     *
+     * @return the transaction type, or null if the type is free text
+     */
+    public TransactionType getTransactionType() {
+        return TransactionType.fromLabel(type);
+    }
     
     /**
      * Gets the amount of the transaction
@@ -55,7 +117,16 @@ public class Transaction {
      * @return the transaction amount
      */
     public double getAmount() {
-        return amount;
+        return Money.toAmount(amountCents);
+    }
+
+    /**
+     * Gets the amount of the transaction in cents
+     *
+     * @return the transaction amount in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
     }
     
     /**
@@ -64,8 +135,29 @@ public class Transaction {
      * @return the description
      */
     public String getDescription() {
+        if (description == null) {
+            description = descriptionTemplate.render(descriptionArgument);
+        }
         return description;
     }
+
+    /**
+     * Gets the description template, or {@link TransactionDescription#TEXT} for free text
+     *
+     * @return the description template
+     */
+    public TransactionDescription getDescriptionTemplate() {
+        return descriptionTemplate;
+    }
+
+    /**
+     * Gets the argument of the description template
+     *
+     * @return the template argument, 0 for free text
+     */
+    public long getDescriptionArgument() {
+        return descriptionArgument;
+    }
     
     /**
      * Gets the account balance after this transaction
@@ -73,7 +165,16 @@ public class Transaction {
      * @return the balance after transaction
      */
     public double getBalanceAfterTransaction() {
-        return balanceAfterTransaction;
+        return Money.toAmount(balanceAfterCents);
+    }
+
+    /**
+     * Gets the account balance after this transaction in cents
+     *
+     * @return the balance after transaction in cents
+     */
+    public long getBalanceAfterCents() {
+        return balanceAfterCents;
     }
     
     /**
@@ -83,11 +184,9 @@ public class Transaction {
      */
     @Override
     public String toString() {
-        return String.format("[%s] %s: ₱%.2f - %s (Balance: ₱%.2f)", 
-                timestamp.format(DATE_FORMATTER),
-                type,
-                amount,
-                description,
-                balanceAfterTransaction);
+        StringBuilder text = new StringBuilder(96);
+        text.append('[').append(timestamp.format(DATE_FORMATTER)).append("] ").append(type).append(": ₱");
+        Money.appendTo(text, amountCents).append(" - ").append(getDescription()).append(" (Balance: ₱");
+        return Money.appendTo(text, balanceAfterCents).append(')').toString();
     }
 }
@@ -0,0 +1,111 @@
+package src.models;
+
+/**
+ * Description templates for the transactions the accounts log themselves.
+ * <p>
+ * A transaction stores a template and one {@code long} argument, such as the other account
+ * of a transfer or the interest rate, and the text is only built when the description is read.
+ * Like {@link TransactionType}, the code of a template is its position in this enum, so new
+ * templates must be added at the end.
+ * </p>
+ */
+public enum TransactionDescription {
+    /** Free text; the text is stored as is */
+    TEXT,
+    OPENING_DEPOSIT,
+    CASH_DEPOSIT,
+    CASH_WITHDRAWAL,
+    /** Argument: the numeric destination account number */
+    TRANSFER_TO,
+    /** Argument: the numeric source account number */
+    TRANSFER_FROM,
+    /** Argument: the final balance in cents */
+    ACCOUNT_CLOSED,
+    ACCOUNT_REOPENED,
+    /** Argument: the number of the transaction this month */
+    DEPOSIT_FEE,
+    /** Argument: the number of the transaction this month */
+    WITHDRAWAL_FEE,
+    /** Argument: the number of the transaction this month */
+    TRANSFER_FEE,
+    /** Argument: the bits of the yearly rate in percent, see {@link Double#doubleToLongBits(double)} */
+    MONTHLY_INTEREST,
+    /** Argument: the bits of the new yearly rate in percent */
+    INTEREST_RATE_CHANGE,
+    CARD_PAYMENT_RECEIVED,
+    CARD_PAYMENT,
+    CARD_PURCHASE;
+
+    private static final TransactionDescription[] BY_CODE = values();
+
+    /**
+     * Builds the description text.
+     *
+     * @param argument the argument stored with the transaction
+     * @return the description
+     * @throws IllegalStateException for {@link #TEXT}, which has no template
+     */
+    public String render(long argument) {
+        switch (this) {
+            case OPENING_DEPOSIT:
+                return "Account opening deposit";
+            case CASH_DEPOSIT:
+                return "Cash deposit";
+            case CASH_WITHDRAWAL:
+                return "Cash withdrawal";
+            case TRANSFER_TO:
+                return "Transfer to account " + argument;
+            case TRANSFER_FROM:
+                return "Transfer from account " + argument;
+            case ACCOUNT_CLOSED:
+                return "Account closed with final balance of ₱" + Money.format(argument);
+            case ACCOUNT_REOPENED:
+                return "Account reopened";
+            case DEPOSIT_FEE:
+                return feeText("Deposit", argument);
+            case WITHDRAWAL_FEE:
+                return feeText("Withdrawal", argument);
+            case TRANSFER_FEE:
+                return feeText("Transfer", argument);
+            case MONTHLY_INTEREST:
+                return String.format("Monthly interest at %.2f%%", Double.longBitsToDouble(argument));
+            case INTEREST_RATE_CHANGE:
+                return String.format("Interest rate changed to %.2f%%", Double.longBitsToDouble(argument));
+            case CARD_PAYMENT_RECEIVED:
+                return "Credit card payment received";
+            case CARD_PAYMENT:
+                return "Credit card payment";
+            case CARD_PURCHASE:
+                return "Credit card purchase";
+            default:
+                throw new IllegalStateException("Free text descriptions have no template");
+        }
+    }
+
+    /**
+     * Gets the compact code of this template.
+     *
+     * @return the code
+     */
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Gets the template of a code.
+     *
+     * @param code the code
+     * @return the template
+     * @throws IllegalArgumentException if no template has this code
+     */
+    public static TransactionDescription fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown description template: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    private static String feeText(String transactionType, long transactionNumber) {
+        return String.format("Transaction fee for %s (transaction #%d)", transactionType, transactionNumber);
+    }
+}
@@ -0,0 +1,951 @@
+package src.models;
+
+import src.interfaces.TransactionArchive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented, append-only transaction history of one account.
+ * <p>
+ * Each transaction takes one slot in six primitive arrays instead of a {@link Transaction}
+ * object with its own timestamp, strings and boxed numbers. Timestamps are stored as
+ * milliseconds of the local date-time (read as if it were UTC) and amounts and balances as
+ * cents. Types are stored as {@link TransactionType} codes, and descriptions as a
+ * {@link TransactionDescription} template code with its argument. Free-text types are coded
+ * through a dictionary shared by all accounts; once it is full, further new types get a shared
+ * "other" code. The labels of those types and free-text descriptions are kept in columns of the
+ * log itself, which are only allocated when the first such transaction is logged, so they are
+ * collected with the log. A transaction with a templated description takes about 34 bytes
+ * this way. {@link Transaction} objects are only created when a transaction is
+ * read through {@link #get(int)}.
+ * </p>
+ * <p>
+ * Readers never copy the log: {@link #asList()} is a read-only list view and
+ * {@link #forEach(int, int, Visitor)} passes the stored columns of a range to a visitor without
+ * creating transactions at all. Because the log only grows and never changes a stored
+ * transaction, a view keeps showing exactly the transactions that existed when it was created.
+ * Only the owning account appends to the log.
+ * </p>
+ * <p>
+ * Date-range queries use a directory of per-day blocks: for every day it holds the index of
+ * the first transaction of that day, so {@link #inDateRange(LocalDate, LocalDate)} finds the
+ * range with two binary searches over the days instead of comparing every timestamp.
+ * Transactions are normally logged in time order. The rare transaction that is older than one
+ * logged before it, for example after the clock was set back, is kept in a separate list of
+ * out-of-order indices and checked on its own.
+ * </p>
+ * <p>
+ * Every type code also has a posting list: the ascending indices of the transactions of that
+ * type. Type filters and per-type counts read the posting lists instead of every transaction,
+ * and a type filter over a date range intersects the type's posting list with the index range
+ * of the days by binary search.
+ * </p>
+ * <p>
+ * The log of an account keeps only the columns of its most recent transactions in memory once
+ * a {@link TransactionArchive} is set: the columns then form a ring buffer of at most
+ * {@link #setHotCapacity(int) the hot capacity} slots, and appending to a full ring overwrites
+ * the oldest slot once the owner has confirmed with {@link #markPersisted(int)} that it is
+ * persisted, so it can be read back through the archive when it is needed again. The ring grows
+ * instead while the oldest slot is unconfirmed; after a transaction failed to persist, the
+ * archive no longer holds the later transactions under the indices of the log, so they all stay
+ * in memory until the log is restored. The log of a restored account starts with all of its
+ * persisted transactions in the archive, see {@link #restoreArchived(int)}, and only builds its
+ * day directory and posting lists on the first query, reading the archive one page of
+ * {@value #ARCHIVE_CHUNK} transactions at a time so the cold history never has to fit on the heap. Logs without an archive or owner, such
+ * as those of accounts created before the archive is set, keep every transaction in memory.
+ * </p>
+ * <p>
+ * The day directory and the posting lists are not bounded by the ring: they cover the whole
+ * history, so queries never scan the archive. Once built, they take a 4-byte posting per
+ * transaction, 12 bytes per day with transactions and 4 bytes per out-of-order transaction,
+ * against about 34 bytes per transaction in the columns, and grow with the history of the
+ * account.
+ * </p>
+ * <p>
+ * Like the rest of {@link Account}, the log is not synchronized.
+ * </p>
+ */
+public class TransactionLog {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final long[] NO_LONGS = new long[0]; // Shared by logs until their first transaction
+    private static final byte[] NO_BYTES = new byte[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final int[][] NO_POSTINGS = new int[0][];
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int DEFAULT_HOT_CAPACITY = 256;
+    private static final int ARCHIVE_CHUNK = 64; // Transactions read from the archive at once, a page of the page cache
+
+    private static final int OTHER_TYPE = 0xFF; // Code of types that did not fit the dictionary
+    private static final StringDictionary TYPES = new StringDictionary(OTHER_TYPE); // Codes fit in a byte
+
+    static {
+        for (TransactionType type : TransactionType.values()) {
+            TYPES.encode(type.getLabel()); // Known types keep their own code
+        }
+    }
+
+    private static volatile TransactionArchive archive;
+    private static volatile int hotCapacity = DEFAULT_HOT_CAPACITY;
+
+    private final Account owner; // Account whose persisted transactions are in the archive, or null
+
+    // Ring of the most recent transactions; the slot of index hotFrom is head. Empty until the first append
+    private long[] epochMillis = NO_LONGS;
+    private long[] amountCents = NO_LONGS;
+    private long[] balanceAfterCents = NO_LONGS;
+    private byte[] typeCodes = NO_BYTES;
+    private byte[] descriptionTemplates = NO_BYTES;
+    private long[] descriptionArguments = NO_LONGS;
+    private String[] descriptionTexts; // Free-text descriptions, null until the first one
+    private String[] otherTypes; // Labels of OTHER_TYPE transactions, null until the first one
+    private int size;
+    private int hotFrom; // Index of the oldest transaction held in memory
+    private int persistedTo; // Transactions below this index are confirmed in the archive
+    private int head;
+    private int indexedTo; // Transactions below this index are in the day directory and the posting lists
+
+    // Per-day blocks of the transactions logged in time order
+    private long[] days = NO_LONGS; // Epoch days, ascending
+    private int[] dayStarts = NO_INTS; // Index of the first transaction of each day
+    private int dayCount;
+    private long latestEpochMillis = Long.MIN_VALUE;
+    private int[] outOfOrder = NO_INTS; // Indices of transactions older than an earlier one, ascending
+    private int outOfOrderCount;
+
+    // Ascending indices of the transactions of each type code, up to the highest code used so far
+    private int[][] postings = NO_POSTINGS;
+    private int[] postingSizes = NO_INTS;
+
+    /**
+     * Creates a log that keeps all of its transactions in memory.
+     */
+    public TransactionLog() {
+        this(null);
+    }
+
+    /**
+     * Creates the log of an account, which moves older transactions to the archive when one
+     * is set.
+     *
+     * @param owner the account whose transactions are persisted under its number
+     */
+    TransactionLog(Account owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Sets the archive that holds the persisted transactions of all accounts. Only logs of
+     * accounts created after the archive is set move transactions out of memory.
+     *
+     * @param transactionArchive the archive, or null to keep all transactions in memory
+     */
+    public static void setArchive(TransactionArchive transactionArchive) {
+        archive = transactionArchive;
+    }
+
+    /**
+     * Sets the number of recent transactions each account keeps in memory when an archive is
+     * set. Logs that already hold more keep them until they are restored.
+     *
+     * @param capacity the number of transactions, at least 1
+     */
+    public static void setHotCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Hot capacity must be at least 1: " + capacity);
+        }
+        hotCapacity = capacity;
+    }
+
+    /**
+     * Replaces the contents of the log with the transactions persisted in the archive, so that
+     * the log and the archive use the same indices. Only the count is kept; the transactions
+     * are read back when they are needed. Nothing is allocated: the columns and indexes start
+     * empty again and grow on the next append or query.
+     *
+     * @param count the number of persisted transactions of the owner
+     * @throws IllegalStateException if the log has no archive to read them from
+     */
+    void restoreArchived(int count) {
+        if (count > 0 && (archive == null || owner == null)) {
+            throw new IllegalStateException("No archive to restore " + count + " transactions from");
+        }
+        epochMillis = NO_LONGS;
+        amountCents = NO_LONGS;
+        balanceAfterCents = NO_LONGS;
+        typeCodes = NO_BYTES;
+        descriptionTemplates = NO_BYTES;
+        descriptionArguments = NO_LONGS;
+        otherTypes = null;
+        descriptionTexts = null;
+        size = count;
+        hotFrom = count;
+        persistedTo = count;
+        head = 0;
+        indexedTo = 0;
+
+        days = NO_LONGS;
+        dayStarts = NO_INTS;
+        dayCount = 0;
+        latestEpochMillis = Long.MIN_VALUE;
+        outOfOrder = NO_INTS;
+        outOfOrderCount = 0;
+        postings = NO_POSTINGS;
+        postingSizes = NO_INTS;
+    }
+
+    /**
+     * Appends a transaction.
+     *
+     * @param transaction the transaction to append
+     */
+    void append(Transaction transaction) {
+        TransactionDescription template = transaction.getDescriptionTemplate();
+        boolean text = template == TransactionDescription.TEXT;
+        append(toEpochMillis(transaction.getTimestamp()), transaction.getType(), transaction.getAmountCents(),
+                template, text ? 0 : transaction.getDescriptionArgument(),
+                text ? transaction.getDescription() : null, transaction.getBalanceAfterCents());
+    }
+
+    /**
+     * Confirms that a transaction is persisted under its index in the archive, so that it may
+     * leave memory. Only a run of confirmed transactions from the oldest one on counts: once a
+     * transaction was not confirmed, later ones are kept in memory as well.
+     *
+     * @param index the index of the transaction
+     */
+    void markPersisted(int index) {
+        if (index == persistedTo) {
+            persistedTo++;
+        }
+    }
+
+    /**
+     * Appends a transaction with a templated description.
+     *
+     * @param timestamp the time the transaction took place
+     * @param type the transaction type
+     * @param amount the amount in cents
+     * @param template the description template, not {@link TransactionDescription#TEXT}
+     * @param argument the argument of the template
+     * @param balanceAfter the balance after the transaction in cents
+     */
+    void append(LocalDateTime timestamp, TransactionType type, long amount,
+                TransactionDescription template, long argument, long balanceAfter) {
+        append(toEpochMillis(timestamp), type.getLabel(), amount, template, argument, null, balanceAfter);
+    }
+
+    private void append(long timestamp, String type, long amount, TransactionDescription template,
+                        long argument, String text, long balanceAfter) {
+        int typeCode = typeCode(type);
+        if (size - hotFrom == epochMillis.length) {
+            if (archive != null && owner != null && epochMillis.length >= hotCapacity && hotFrom < persistedTo) {
+                hotFrom++; // Overwrite the oldest slot, which is already persisted
+                head = head + 1 == epochMillis.length ? 0 : head + 1;
+            } else {
+                grow();
+            }
+        }
+        if (indexedTo == size) {
+            index(size, timestamp, typeCode);
+            indexedTo++;
+        }
+        int slot = slotOf(size);
+        epochMillis[slot] = timestamp;
+        amountCents[slot] = amount;
+        balanceAfterCents[slot] = balanceAfter;
+        typeCodes[slot] = (byte) typeCode;
+        if (typeCode == OTHER_TYPE && otherTypes == null) {
+            otherTypes = new String[epochMillis.length];
+        }
+        if (otherTypes != null) {
+            otherTypes[slot] = typeCode == OTHER_TYPE ? type : null;
+        }
+        descriptionTemplates[slot] = template.getCode();
+        descriptionArguments[slot] = argument;
+        if (text != null && descriptionTexts == null) {
+            descriptionTexts = new String[epochMillis.length];
+        }
+        if (descriptionTexts != null) {
+            descriptionTexts[slot] = text;
+        }
+        size++;
+    }
+
+    /**
+     * Gets the number of transactions.
+     *
+     * @return the number of transactions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the log holds no transactions.
+     *
+     * @return true if there are no transactions
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Creates the transaction at an index, reading it from the archive if it is no longer held
+     * in memory.
+     *
+     * @param index the index, 0 being the oldest transaction
+     * @return a new transaction object
+     */
+    public Transaction get(int index) {
+        checkIndex(index);
+        if (index < hotFrom) {
+            return readArchived(index);
+        }
+        int slot = slotOf(index);
+        LocalDateTime timestamp = toDateTime(epochMillis[slot]);
+        TransactionType type = TransactionType.fromCode(typeCodes[slot] & 0xFF);
+        TransactionDescription template = TransactionDescription.fromCode(descriptionTemplates[slot]);
+        if (type == null || template == TransactionDescription.TEXT) {
+            String description = template == TransactionDescription.TEXT
+                    ? descriptionTexts[slot]
+                    : template.render(descriptionArguments[slot]);
+            return new Transaction(timestamp, typeAt(slot), amountCents[slot], description,
+                    balanceAfterCents[slot]);
+        }
+        return new Transaction(timestamp, type, amountCents[slot], template, descriptionArguments[slot],
+                balanceAfterCents[slot]);
+    }
+
+    /**
+     * Gets the number of the oldest transactions that are only held in the archive.
+     *
+     * @return the number of archived transactions, 0 if all are held in memory
+     */
+    public int archivedCount() {
+        return hotFrom;
+    }
+
+    /**
+     * Gets a read-only view of the transactions logged so far, oldest first. The view does not
+     * copy the log and does not show transactions appended after it was created; its
+     * {@link List#subList(int, int) sub lists} are views as well.
+     *
+     * @return the transactions as a list
+     */
+    public List<Transaction> asList() {
+        return new View(0, size);
+    }
+
+    /**
+     * Gets a read-only view of the most recent transactions, oldest first.
+     * Costs O(1); reading the view costs O(count).
+     *
+     * @param count the largest number of transactions to include
+     * @return the last {@code count} transactions, or all of them if there are fewer
+     */
+    public List<Transaction> recent(int count) {
+        return new View(Math.max(0, size - Math.max(0, count)), size);
+    }
+
+    /**
+     * Gets the transactions logged on the days from {@code startDate} to {@code endDate}, both
+     * inclusive, in log order. Costs O(log d + k) for d logged days and k matching transactions,
+     * plus the number of out-of-order transactions.
+     *
+     * @param startDate the first day, inclusive
+     * @param endDate the last day, inclusive
+     * @return a read-only list of the matching transactions
+     */
+    public List<Transaction> inDateRange(LocalDate startDate, LocalDate endDate) {
+        ensureIndexed();
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay() + 1; // Exclusive
+        int from = firstIndexOfDay(startDay);
+        int to = Math.max(from, firstIndexOfDay(endDay));
+        if (outOfOrderCount == 0) {
+            return new View(from, to);
+        }
+
+        long startMillis = startDay * MILLIS_PER_DAY;
+        long endMillis = endDay * MILLIS_PER_DAY;
+        List<Transaction> transactions = new ArrayList<>(to - from);
+        int next = 0;
+        for (; next < outOfOrderCount && outOfOrder[next] < from; next++) {
+            addIfBetween(transactions, outOfOrder[next], startMillis, endMillis);
+        }
+        for (int i = from; i < to; i++) {
+            addIfBetween(transactions, i, startMillis, endMillis); // Skips out-of-order ones outside the range
+        }
+        for (; next < outOfOrderCount; next++) {
+            if (outOfOrder[next] >= to) {
+                addIfBetween(transactions, outOfOrder[next], startMillis, endMillis);
+            }
+        }
+        return Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * Gets the transactions of a type, in log order. Types are compared ignoring case.
+     * Costs O(k) for k matching transactions; when one type code matches, the result is a view
+     * over its posting list.
+     *
+     * @param type the transaction type, such as "Deposit"
+     * @return a read-only list of the matching transactions
+     */
+    public List<Transaction> ofType(String type) {
+        ensureIndexed();
+        Postings matches = postingsOf(type);
+        return new PostingView(matches.indices, 0, matches.size);
+    }
+
+    /**
+     * Gets the transactions of a type logged on the days from {@code startDate} to
+     * {@code endDate}, both inclusive, in log order. Intersects the posting list of the type
+     * with the day directory, so it costs O(log n + k) plus the number of out-of-order
+     * transactions.
+     *
+     * @param type the transaction type, compared ignoring case
+     * @param startDate the first day, inclusive
+     * @param endDate the last day, inclusive
+     * @return a read-only list of the matching transactions
+     */
+    public List<Transaction> ofTypeInDateRange(String type, LocalDate startDate, LocalDate endDate) {
+        ensureIndexed();
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay() + 1; // Exclusive
+        int from = firstIndexOfDay(startDay);
+        int to = Math.max(from, firstIndexOfDay(endDay));
+
+        Postings matches = postingsOf(type);
+        int low = lowerBound(matches.indices, matches.size, from);
+        int high = lowerBound(matches.indices, matches.size, to);
+        if (outOfOrderCount == 0) {
+            return new PostingView(matches.indices, low, high);
+        }
+
+        long startMillis = startDay * MILLIS_PER_DAY;
+        long endMillis = endDay * MILLIS_PER_DAY;
+        List<Transaction> transactions = new ArrayList<>(high - low);
+        int next = 0;
+        for (; next < outOfOrderCount && outOfOrder[next] < from; next++) {
+            addIfTypeBetween(transactions, outOfOrder[next], type, startMillis, endMillis);
+        }
+        for (int i = low; i < high; i++) {
+            addIfBetween(transactions, matches.indices[i], startMillis, endMillis);
+        }
+        for (; next < outOfOrderCount; next++) {
+            if (outOfOrder[next] >= to) {
+                addIfTypeBetween(transactions, outOfOrder[next], type, startMillis, endMillis);
+            }
+        }
+        return Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * Counts the transactions of a type without reading them.
+     *
+     * @param type the transaction type, compared ignoring case
+     * @return the number of transactions of the type
+     */
+    public int countOfType(String type) {
+        ensureIndexed();
+        int count = 0;
+        for (int code = 0; code < postings.length; code++) {
+            if (postingSizes[code] == 0) {
+                continue;
+            }
+            if (code == OTHER_TYPE) {
+                count += otherPostings(type).size;
+            } else if (TYPES.decode(code).equalsIgnoreCase(type)) {
+                count += postingSizes[code];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the transactions of every type that occurs in the log.
+     *
+     * @return the number of transactions by type label, in type code order; types beyond the
+     *         type dictionary come last
+     */
+    public Map<String, Integer> countsByType() {
+        ensureIndexed();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int code = 0; code < postings.length; code++) {
+            if (postingSizes[code] == 0) {
+                continue;
+            }
+            if (code == OTHER_TYPE) {
+                for (int i = 0; i < postingSizes[code]; i++) {
+                    counts.merge(getType(postings[code][i]), 1, Integer::sum);
+                }
+            } else {
+                counts.put(TYPES.decode(code), postingSizes[code]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Passes the stored fields of a range of transactions to a visitor, without creating
+     * transaction objects.
+     *
+     * @param fromIndex the first index, inclusive
+     * @param toIndex the last index, exclusive
+     * @param visitor the visitor
+     */
+    public void forEach(int fromIndex, int toIndex, Visitor visitor) {
+        checkRange(fromIndex, toIndex, size);
+        int i = fromIndex;
+        int archivedTo = Math.min(toIndex, hotFrom);
+        while (i < archivedTo) {
+            int chunkEnd = chunkEnd(i, archivedTo);
+            for (Transaction transaction : readArchived(i, chunkEnd)) {
+                visitor.visit(i++, toEpochMillis(transaction.getTimestamp()), transaction.getType(),
+                        transaction.getAmountCents(), transaction.getBalanceAfterCents());
+            }
+            i = chunkEnd; // Skips transactions the archive could not read
+        }
+        for (; i < toIndex; i++) {
+            int slot = slotOf(i);
+            visitor.visit(i, epochMillis[slot], typeAt(slot), amountCents[slot], balanceAfterCents[slot]);
+        }
+    }
+
+    /**
+     * Gets the time of the transaction at an index without creating the transaction.
+     *
+     * @param index the index
+     * @return the local date-time in milliseconds, see {@link #toEpochMillis(LocalDateTime)}
+     */
+    public long getEpochMillis(int index) {
+        checkIndex(index);
+        return index < hotFrom ? toEpochMillis(readArchived(index).getTimestamp()) : epochMillis[slotOf(index)];
+    }
+
+    /**
+     * Gets the type of the transaction at an index without creating the transaction.
+     *
+     * @param index the index
+     * @return the transaction type
+     */
+    public String getType(int index) {
+        checkIndex(index);
+        return index < hotFrom ? readArchived(index).getType() : typeAt(slotOf(index));
+    }
+
+    /**
+     * Gets the amount of the transaction at an index without creating the transaction.
+     *
+     * @param index the index
+     * @return the amount in cents
+     */
+    public long getAmountCents(int index) {
+        checkIndex(index);
+        return index < hotFrom ? readArchived(index).getAmountCents() : amountCents[slotOf(index)];
+    }
+
+    /**
+     * Gets the balance after the transaction at an index without creating the transaction.
+     *
+     * @param index the index
+     * @return the balance in cents
+     */
+    public long getBalanceAfterCents(int index) {
+        checkIndex(index);
+        return index < hotFrom ? readArchived(index).getBalanceAfterCents() : balanceAfterCents[slotOf(index)];
+    }
+
+    /**
+     * Converts a local date-time to the millisecond value stored in the log.
+     *
+     * @param timestamp the local date-time
+     * @return milliseconds since 1970-01-01T00:00 of the same calendar
+     */
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Converts a stored millisecond value back to a local date-time.
+     *
+     * @param epochMillis the stored value
+     * @return the local date-time
+     */
+    public static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1000000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Indexes the transactions below the current size that are not indexed yet, reading the
+     * archived ones a chunk at a time. Only the log of a restored account has any.
+     */
+    private void ensureIndexed() {
+        if (indexedTo == size) {
+            return;
+        }
+        int archivedTo = Math.min(size, hotFrom);
+        while (indexedTo < archivedTo) {
+            int chunkEnd = chunkEnd(indexedTo, archivedTo);
+            for (Transaction transaction : readArchived(indexedTo, chunkEnd)) {
+                index(indexedTo++, toEpochMillis(transaction.getTimestamp()), typeCode(transaction.getType()));
+            }
+            indexedTo = chunkEnd; // Transactions the archive could not read are left out of queries
+        }
+        for (; indexedTo < size; indexedTo++) {
+            int slot = slotOf(indexedTo);
+            index(indexedTo, epochMillis[slot], typeCodes[slot] & 0xFF);
+        }
+    }
+
+    /**
+     * Adds a transaction to the day directory and to the posting list of its type.
+     * Transactions are indexed in index order.
+     */
+    private void index(int index, long timestamp, int typeCode) {
+        indexTime(index, timestamp);
+        addPosting(typeCode, index);
+    }
+
+    /**
+     * Adds a transaction to the day directory, or to the out-of-order list if it is older than
+     * a transaction logged before it.
+     */
+    private void indexTime(int index, long timestamp) {
+        if (timestamp < latestEpochMillis) {
+            if (outOfOrderCount == outOfOrder.length) {
+                outOfOrder = Arrays.copyOf(outOfOrder, Math.max(INITIAL_CAPACITY, outOfOrderCount * 2));
+            }
+            outOfOrder[outOfOrderCount++] = index;
+            return;
+        }
+
+        latestEpochMillis = timestamp;
+        long day = Math.floorDiv(timestamp, MILLIS_PER_DAY);
+        if (dayCount > 0 && days[dayCount - 1] == day) {
+            return;
+        }
+        if (dayCount == days.length) {
+            days = Arrays.copyOf(days, Math.max(INITIAL_CAPACITY, dayCount * 2));
+            dayStarts = Arrays.copyOf(dayStarts, Math.max(INITIAL_CAPACITY, dayCount * 2));
+        }
+        days[dayCount] = day;
+        dayStarts[dayCount] = index;
+        dayCount++;
+    }
+
+    /**
+     * Gets the index of the first in-order transaction logged on or after a day.
+     */
+    private int firstIndexOfDay(long day) {
+        int low = 0;
+        int high = dayCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < dayCount ? dayStarts[low] : size;
+    }
+
+    private void addPosting(int typeCode, int index) {
+        if (typeCode >= postings.length) {
+            postings = Arrays.copyOf(postings, typeCode + 1);
+            postingSizes = Arrays.copyOf(postingSizes, typeCode + 1);
+        }
+        int[] list = postings[typeCode];
+        int count = postingSizes[typeCode];
+        if (list == null) {
+            list = new int[INITIAL_CAPACITY];
+            postings[typeCode] = list;
+        } else if (count == list.length) {
+            list = Arrays.copyOf(list, count + (count >> 1));
+            postings[typeCode] = list;
+        }
+        list[count] = index;
+        postingSizes[typeCode] = count + 1;
+    }
+
+    /**
+     * Gets the ascending indices of the transactions of a type, as of the current size.
+     * Shares the posting list when one type code matches, which is the usual case, and merges
+     * the lists of all matching codes otherwise. Shared lists are safe to keep because appends
+     * never change the indices below the returned size.
+     */
+    private Postings postingsOf(String type) {
+        Postings matches = new Postings(NO_INTS, 0);
+        for (int code = 0; code < postings.length; code++) {
+            if (postingSizes[code] == 0) {
+                continue;
+            }
+            Postings codeMatches = code == OTHER_TYPE ? otherPostings(type)
+                    : TYPES.decode(code).equalsIgnoreCase(type) ? new Postings(postings[code], postingSizes[code])
+                    : null;
+            if (codeMatches != null && codeMatches.size > 0) {
+                matches = matches.size == 0 ? codeMatches : matches.merge(codeMatches.indices, codeMatches.size);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the ascending indices of the transactions of a type among those with the shared
+     * "other" code, checking the label of each.
+     */
+    private Postings otherPostings(String type) {
+        int[] candidates = postings[OTHER_TYPE];
+        int count = postingSizes[OTHER_TYPE];
+        int[] indices = new int[count];
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            if (getType(candidates[i]).equalsIgnoreCase(type)) {
+                indices[matched++] = candidates[i];
+            }
+        }
+        return new Postings(indices, matched);
+    }
+
+    /**
+     * Gets the code of a type, adding it to the dictionary if there is room.
+     */
+    private static int typeCode(String type) {
+        int code = TYPES.tryEncode(type);
+        return code >= 0 ? code : OTHER_TYPE;
+    }
+
+    /**
+     * Gets the type label of a transaction held in memory.
+     */
+    private String typeAt(int slot) {
+        int code = typeCodes[slot] & 0xFF;
+        return code == OTHER_TYPE ? otherTypes[slot] : TYPES.decode(code);
+    }
+
+    private static int lowerBound(int[] values, int size, int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void addIfTypeBetween(List<Transaction> transactions, int index, String type,
+                                  long startMillis, long endMillis) {
+        if (getType(index).equalsIgnoreCase(type)) {
+            addIfBetween(transactions, index, startMillis, endMillis);
+        }
+    }
+
+    private void addIfBetween(List<Transaction> transactions, int index, long startMillis, long endMillis) {
+        long timestamp = getEpochMillis(index);
+        if (timestamp >= startMillis && timestamp < endMillis) {
+            transactions.add(get(index));
+        }
+    }
+
+    private Transaction readArchived(int index) {
+        List<Transaction> transactions = readArchived(index, index + 1);
+        if (transactions.isEmpty()) {
+            throw new IllegalStateException("Transaction " + index + " of account " + owner.getAccountNumber()
+                    + " could not be read from the archive");
+        }
+        return transactions.get(0);
+    }
+
+    private List<Transaction> readArchived(int fromIndex, int toIndex) {
+        return archive.read(owner.getAccountNumber(), fromIndex, toIndex);
+    }
+
+    /**
+     * Gets the end of the archive chunk that starts at an index. Chunks are aligned to multiples
+     * of {@value #ARCHIVE_CHUNK}, so a paging archive serves each one from a single page.
+     */
+    private static int chunkEnd(int fromIndex, int toIndex) {
+        return Math.min(toIndex, (fromIndex / ARCHIVE_CHUNK + 1) * ARCHIVE_CHUNK);
+    }
+
+    /**
+     * Gets the ring slot of a transaction held in memory.
+     */
+    private int slotOf(int index) {
+        int slot = head + (index - hotFrom);
+        return slot < epochMillis.length ? slot : slot - epochMillis.length;
+    }
+
+    private static void checkRange(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Grows the full ring, moving the oldest transaction in memory to slot 0. The ring grows up
+     * to the hot capacity while an archive is set, and starts at {@value #INITIAL_CAPACITY} slots.
+     */
+    private void grow() {
+        int length = epochMillis.length;
+        int capacity = length == 0 ? INITIAL_CAPACITY : length + (length >> 1);
+        if (archive != null && owner != null) {
+            capacity = Math.max(length + 1, Math.min(capacity, hotCapacity));
+        }
+        epochMillis = unwrap(epochMillis, new long[capacity], length);
+        amountCents = unwrap(amountCents, new long[capacity], length);
+        balanceAfterCents = unwrap(balanceAfterCents, new long[capacity], length);
+        typeCodes = unwrap(typeCodes, new byte[capacity], length);
+        descriptionTemplates = unwrap(descriptionTemplates, new byte[capacity], length);
+        descriptionArguments = unwrap(descriptionArguments, new long[capacity], length);
+        if (otherTypes != null) {
+            otherTypes = unwrap(otherTypes, new String[capacity], length);
+        }
+        if (descriptionTexts != null) {
+            descriptionTexts = unwrap(descriptionTexts, new String[capacity], length);
+        }
+        head = 0;
+    }
+
+    private <T> T unwrap(T ring, T target, int length) {
+        System.arraycopy(ring, head, target, 0, length - head);
+        System.arraycopy(ring, 0, target, length - head, head);
+        return target;
+    }
+
+    /**
+     * The first {@code size} entries of an array of ascending transaction indices.
+     */
+    private static final class Postings {
+        private final int[] indices;
+        private final int size;
+
+        Postings(int[] indices, int size) {
+            this.indices = indices;
+            this.size = size;
+        }
+
+        Postings merge(int[] other, int otherSize) {
+            int[] merged = new int[size + otherSize];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size && j < otherSize) {
+                merged[k++] = indices[i] < other[j] ? indices[i++] : other[j++];
+            }
+            while (i < size) {
+                merged[k++] = indices[i++];
+            }
+            while (j < otherSize) {
+                merged[k++] = other[j++];
+            }
+            return new Postings(merged, merged.length);
+        }
+    }
+
+    /**
+     * Receives the stored fields of a transaction. The description is not passed because it is
+     * only built on demand; use {@link TransactionLog#get(int)} for matching transactions.
+     */
+    public interface Visitor {
+        /**
+         * Visits one transaction.
+         *
+         * @param index the index of the transaction in the log
+         * @param epochMillis the local date-time in milliseconds
+         * @param type the transaction type
+         * @param amountCents the amount in cents
+         * @param balanceAfterCents the balance after the transaction in cents
+         */
+        void visit(int index, long epochMillis, String type, long amountCents, long balanceAfterCents);
+    }
+
+    /**
+     * Read-only list over a range of a posting list.
+     */
+    private final class PostingView extends AbstractList<Transaction> implements RandomAccess {
+        private final int[] indices;
+        private final int fromIndex;
+        private final int toIndex;
+
+        PostingView(int[] indices, int fromIndex, int toIndex) {
+            this.indices = indices;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return TransactionLog.this.get(indices[fromIndex + index]);
+        }
+
+        @Override
+        public int size() {
+            return toIndex - fromIndex;
+        }
+
+        @Override
+        public List<Transaction> subList(int from, int to) {
+            checkRange(from, to, size());
+            return new PostingView(indices, fromIndex + from, fromIndex + to);
+        }
+    }
+
+    /**
+     * Read-only list over a fixed range of the log.
+     */
+    private final class View extends AbstractList<Transaction> implements RandomAccess {
+        private final int fromIndex;
+        private final int toIndex;
+
+        View(int fromIndex, int toIndex) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return TransactionLog.this.get(fromIndex + index);
+        }
+
+        @Override
+        public int size() {
+            return toIndex - fromIndex;
+        }
+
+        @Override
+        public List<Transaction> subList(int from, int to) {
+            checkRange(from, to, size());
+            return new View(fromIndex + from, fromIndex + to);
+        }
+    }
+}
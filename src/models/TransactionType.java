@@ -0,0 +1,78 @@
+package src.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of transactions the accounts log themselves.
+ * The code of a type is its position in this enum and fits in a byte, so new types must be
+ * added at the end to keep persisted codes valid.
+ */
+public enum TransactionType {
+    INITIAL_DEPOSIT("Initial Deposit"),
+    DEPOSIT("Deposit"),
+    WITHDRAWAL("Withdrawal"),
+    TRANSFER_OUT("Transfer Out"),
+    TRANSFER_IN("Transfer In"),
+    FEE("Fee"),
+    INTEREST("Interest"),
+    INTEREST_CHARGE("Interest Charge"),
+    INTEREST_RATE_CHANGE("Interest Rate Change"),
+    PAYMENT("Payment"),
+    PURCHASE("Purchase"),
+    ACCOUNT_CLOSED("Account Closed"),
+    ACCOUNT_REOPENED("Account Reopened");
+
+    private static final TransactionType[] BY_CODE = values();
+    private static final Map<String, TransactionType> BY_LABEL = new HashMap<>();
+
+    static {
+        for (TransactionType type : BY_CODE) {
+            BY_LABEL.put(type.label, type);
+        }
+    }
+
+    private final String label;
+
+    TransactionType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the text shown for this type in histories and reports.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the compact code of this type.
+     *
+     * @return the code
+     */
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Gets the type of a code.
+     *
+     * @param code the code
+     * @return the type, or null if no type has this code
+     */
+    public static TransactionType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Gets the type with a label.
+     *
+     * @param label the label, such as "Transfer Out"
+     * @return the type, or null if the label is free text
+     */
+    public static TransactionType fromLabel(String label) {
+        return BY_LABEL.get(label);
+    }
+}
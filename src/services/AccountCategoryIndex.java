@@ -0,0 +1,286 @@
+package src.services;
+
+import src.models.Account;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Secondary indexes of the account list by account type and by active/closed status.
+ * <p>
+ * Every account keeps its position in the account list. The status index is a bit set over
+ * those positions, so closing or reopening an account flips one bit, and the type index keeps
+ * one bit set per account class. Queries return read-only live views in account list order
+ * instead of filtering the whole list into a new one: iterating a view walks the set bits, and
+ * nothing is copied.
+ * </p>
+ * <p>
+ * The index guards its state with its own lock, which every update and every view operation
+ * takes. Views are weakly consistent: they can be iterated while accounts are added, closed or
+ * reopened, never throw {@link java.util.ConcurrentModificationException}, and reflect the
+ * changes made before each step of the iteration.
+ * </p>
+ */
+public class AccountCategoryIndex {
+    private final Object lock = new Object(); // Guards everything below and the views
+    private final List<Account> indexed = new ArrayList<>(); // Indexed accounts by position
+    private final Map<Account, Integer> positions = new IdentityHashMap<>();
+    private final BitSet active = new BitSet();
+    private int activeCount;
+    private final Map<Class<? extends Account>, TypePositions> positionsByType = new LinkedHashMap<>();
+    private int version; // Changes with every update, so views drop their cached positions
+
+    private final List<Account> activeView = new PositionView() {
+        @Override
+        int nextPosition(int from) {
+            return active.nextSetBit(from);
+        }
+
+        @Override
+        int count() {
+            return activeCount;
+        }
+    };
+
+    private final List<Account> closedView = new PositionView() {
+        @Override
+        int nextPosition(int from) {
+            int position = active.nextClearBit(from);
+            return position < indexed.size() ? position : -1;
+        }
+
+        @Override
+        int count() {
+            return indexed.size() - activeCount;
+        }
+    };
+
+    /**
+     * Indexes an account. Accounts are indexed in list order.
+     *
+     * @param position the position of the account in the account list
+     * @param account the account
+     */
+    public void add(int position, Account account) {
+        synchronized (lock) {
+            while (indexed.size() <= position) {
+                indexed.add(null);
+            }
+            indexed.set(position, account);
+            positions.put(account, position);
+            if (account.isActive()) {
+                active.set(position);
+                activeCount++;
+            }
+            TypePositions typePositions = positionsByType.computeIfAbsent(account.getClass(), type -> new TypePositions());
+            typePositions.bits.set(position);
+            typePositions.count++;
+            version++;
+        }
+    }
+
+    /**
+     * Updates the status index after an account was closed or reopened.
+     *
+     * @param account the changed account
+     */
+    public void updateStatus(Account account) {
+        synchronized (lock) {
+            Integer position = positions.get(account);
+            if (position == null || active.get(position) == account.isActive()) {
+                return;
+            }
+            active.set(position, account.isActive());
+            activeCount += account.isActive() ? 1 : -1;
+            version++;
+        }
+    }
+
+    /**
+     * Gets the position of an indexed account in the account list.
+     *
+     * @param account the account
+     * @return the position, or -1 if the account is not indexed
+     */
+    public int positionOf(Account account) {
+        synchronized (lock) {
+            Integer position = positions.get(account);
+            return position != null ? position : -1;
+        }
+    }
+
+    /**
+     * Removes all accounts from the index.
+     */
+    public void clear() {
+        synchronized (lock) {
+            indexed.clear();
+            positions.clear();
+            active.clear();
+            activeCount = 0;
+            positionsByType.clear();
+            version++;
+        }
+    }
+
+    /**
+     * Gets the active accounts.
+     *
+     * @return a read-only live view of the active accounts
+     */
+    public List<Account> getActiveAccounts() {
+        return activeView;
+    }
+
+    /**
+     * Gets the closed accounts.
+     *
+     * @return a read-only live view of the closed accounts
+     */
+    public List<Account> getClosedAccounts() {
+        return closedView;
+    }
+
+    /**
+     * Gets the accounts of the given type, including accounts of its subclasses.
+     * Classes indexed after the view was created are part of it as well.
+     *
+     * @param accountType the account type
+     * @return a read-only live view of the accounts of that type
+     */
+    public List<Account> getAccountsOfType(Class<? extends Account> accountType) {
+        return new PositionView() {
+            @Override
+            int nextPosition(int from) {
+                int next = -1;
+                for (Map.Entry<Class<? extends Account>, TypePositions> entry : positionsByType.entrySet()) {
+                    if (accountType.isAssignableFrom(entry.getKey())) {
+                        int position = entry.getValue().bits.nextSetBit(from);
+                        if (position >= 0 && (next < 0 || position < next)) {
+                            next = position;
+                        }
+                    }
+                }
+                return next;
+            }
+
+            @Override
+            int count() {
+                int count = 0;
+                for (Map.Entry<Class<? extends Account>, TypePositions> entry : positionsByType.entrySet()) {
+                    if (accountType.isAssignableFrom(entry.getKey())) {
+                        count += entry.getValue().count;
+                    }
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * The positions of the accounts of one class.
+     */
+    private static final class TypePositions {
+        final BitSet bits = new BitSet();
+        int count;
+    }
+
+    /**
+     * A read-only view of the indexed accounts whose positions match, in position order.
+     * Sequential positional access resumes from the last position looked up, so an indexed loop
+     * walks the bits once.
+     */
+    private abstract class PositionView extends AbstractList<Account> {
+        private int cachedIndex = -1;
+        private int cachedPosition;
+        private int cachedVersion;
+
+        /**
+         * Finds the first matching position at or after the given one. Called under the lock.
+         *
+         * @param from the position to start at
+         * @return the matching position, or -1 if there is none
+         */
+        abstract int nextPosition(int from);
+
+        /**
+         * Counts the matching accounts. Called under the lock.
+         *
+         * @return the number of matching accounts
+         */
+        abstract int count();
+
+        @Override
+        public int size() {
+            synchronized (lock) {
+                return count();
+            }
+        }
+
+        @Override
+        public Account get(int index) {
+            synchronized (lock) {
+                int size = count();
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                int at;
+                int position;
+                if (cachedVersion == version && cachedIndex >= 0 && cachedIndex <= index) {
+                    at = cachedIndex;
+                    position = cachedPosition;
+                } else {
+                    at = 0;
+                    position = nextPosition(0);
+                }
+                while (at < index) {
+                    position = nextPosition(position + 1);
+                    at++;
+                }
+                cachedIndex = index;
+                cachedPosition = position;
+                cachedVersion = version;
+                return indexed.get(position);
+            }
+        }
+
+        @Override
+        public Iterator<Account> iterator() {
+            return new Iterator<Account>() {
+                private int from; // The position to look for the next account at
+                private Account next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        synchronized (lock) {
+                            int position = from < indexed.size() ? nextPosition(from) : -1;
+                            if (position >= 0) {
+                                next = indexed.get(position);
+                                from = position + 1;
+                            }
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Account next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Account account = next;
+                    next = null;
+                    return account;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package src.services;
+
+import src.models.Account;
+import src.models.Money;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only journal of account mutations.
+ * <p>
+ * Every change appends one line holding the operation, the amount involved and the resulting
+ * state of each account it touched, using the same fields as {@code accounts.csv}. Holder names
+ * are escaped ({@code \\}, {@code \c} for a comma, {@code \n} and {@code \r}) so that every record
+ * is one line with a fixed number of fields. Replaying the
+ * journal on top of the last saved snapshot restores the accounts without rewriting the snapshot
+ * after every change.
+ * </p>
+ * <p>
+ * Saving a snapshot is a two step checkpoint: {@link #beginCheckpoint()} marks where the
+ * checkpoint ends, the group commit thread moves the records before the mark aside and later
+ * records go to a fresh file while the snapshot is written, then {@link #completeCheckpoint()}
+ * deletes the records the snapshot now covers.
+ * </p>
+ * <p>
+ * Records are committed through a {@link GroupCommitWriter}, so records appended by many
+ * clerks at the same time share one {@code fsync}.
+ * </p>
+ */
+public class AccountJournal {
+    private static final String JOURNAL_FILE = "src/accounts.journal";
+
+    /**
+     * Kinds of account mutations recorded in the journal.
+     */
+    public enum Operation {
+        CREATE, DEPOSIT, WITHDRAW, TRANSFER, CLOSE, REOPEN, INTEREST
+    }
+
+    private final Path journalPath;
+    private final GroupCommitWriter writer;
+    private FileChannel channel;
+
+    /**
+     * Creates a journal backed by the default journal file.
+     */
+    public AccountJournal() {
+        this(Paths.get(JOURNAL_FILE));
+    }
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param journalPath the path of the journal file
+     */
+    public AccountJournal(Path journalPath) {
+        this.journalPath = journalPath;
+        this.writer = new GroupCommitWriter(this::writeBatch, "account-journal");
+    }
+
+    /**
+     * Appends a mutation record. The record is formatted right away and forced to disk with
+     * the next group commit.
+     *
+     * @param operation the kind of mutation
+     * @param amount the amount involved in the mutation
+     * @param accounts the accounts changed by the mutation, in their new state
+     * @return a future that completes once the record is on disk
+     */
+    public CompletableFuture<Void> append(Operation operation, double amount, Account... accounts) {
+        StringBuilder record = new StringBuilder();
+        record.append(operation.name()).append(',').append(Money.format(Money.ofAmount(amount)));
+        for (Account account : accounts) {
+            CSVUtility.appendAccount(record.append(','), account, escape(account.getAccountHolderName()));
+        }
+        record.append('\n');
+
+        return writer.submit(record.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a batch of records and forces them to disk once. Called by the group commit writer.
+     *
+     * @param records the formatted records
+     * @throws IOException if the records cannot be written
+     */
+    private synchronized void writeBatch(List<byte[]> records) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i));
+            remaining += buffers[i].remaining();
+        }
+
+        FileChannel journal = getChannel();
+        while (remaining > 0) {
+            remaining -= journal.write(buffers);
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Gets the group commit statistics of the journal.
+     *
+     * @return the batch size and commit latency statistics
+     */
+    public GroupCommitWriter.Statistics getCommitStatistics() {
+        return writer.getStatistics();
+    }
+
+    /**
+     * Replays the journal on top of the given accounts.
+     * Accounts that are not yet known are created, known accounts take the recorded state.
+     *
+     * @param accounts the accounts loaded from the last snapshot; new accounts are appended to it
+     * @param changedAccounts receives every account created or updated by the replay
+     * @return the number of records replayed
+     */
+    public synchronized int replay(List<Account> accounts, Collection<Account> changedAccounts) {
+        Map<String, Account> accountsByNumber = new HashMap<>();
+        for (Account account : accounts) {
+            accountsByNumber.put(account.getAccountNumber(), account);
+        }
+
+        // Records of an unfinished checkpoint are older than the ones in the journal file
+        return replayFile(checkpointPath(), accounts, accountsByNumber, changedAccounts)
+                + replayFile(journalPath, accounts, accountsByNumber, changedAccounts);
+    }
+
+    /**
+     * Replays the records of one journal file.
+     *
+     * @param path the journal file
+     * @param accounts the account list to append created accounts to
+     * @param accountsByNumber lookup of the accounts by account number
+     * @param changedAccounts receives the accounts touched by the records
+     * @return the number of records replayed
+     */
+    private int replayFile(Path path, List<Account> accounts, Map<String, Account> accountsByNumber,
+                           Collection<Account> changedAccounts) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        int replayed = 0;
+        boolean corrupt = false;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                lineNumber++;
+                try {
+                    replayRecord(line.split(",", -1), accounts, accountsByNumber, changedAccounts);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    if (next == null) {
+                        // A torn record can only be the last one written before a crash
+                        System.err.println("Skipping torn journal record: " + line);
+                    } else {
+                        System.err.println("Corrupt journal record at line " + lineNumber + " of " + path
+                                + ": " + line);
+                        corrupt = true;
+                    }
+                }
+                line = next;
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying account journal: " + e.getMessage());
+        }
+        if (corrupt) {
+            preserveCorruptFile(path);
+        }
+        return replayed;
+    }
+
+    /**
+     * Copies a journal file with corrupt records aside, so that the records are still available
+     * after the next checkpoint deletes the file.
+     *
+     * @param path the journal file
+     */
+    private void preserveCorruptFile(Path path) {
+        Path copy = path.resolveSibling(path.getFileName() + ".corrupt");
+        try {
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("Kept a copy of the corrupt account journal at " + copy);
+        } catch (IOException e) {
+            System.err.println("Error keeping a copy of the corrupt account journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a single journal record.
+     *
+     * @param data the record fields
+     * @param accounts the account list to append created accounts to
+     * @param accountsByNumber lookup of the accounts by account number
+     * @param changedAccounts receives the accounts touched by the record
+     */
+    private void replayRecord(String[] data, List<Account> accounts, Map<String, Account> accountsByNumber,
+                              Collection<Account> changedAccounts) {
+        Operation.valueOf(data[0]); // Reject records with an unknown operation
+        if ((data.length - 2) % CSVUtility.ACCOUNT_FIELD_COUNT != 0) {
+            throw new IllegalArgumentException("Incomplete journal record");
+        }
+
+        for (int offset = 2; offset < data.length; offset += CSVUtility.ACCOUNT_FIELD_COUNT) {
+            data[offset + 1] = unescape(data[offset + 1]);
+        }
+        for (int offset = 2; offset < data.length; offset += CSVUtility.ACCOUNT_FIELD_COUNT) {
+            Account account = accountsByNumber.get(data[offset]);
+            if (account == null) {
+                account = CSVUtility.parseAccount(data, offset);
+                if (account != null) {
+                    accounts.add(account);
+                    accountsByNumber.put(account.getAccountNumber(), account);
+                    changedAccounts.add(account);
+                }
+            } else {
+                CSVUtility.applyState(account, data, offset);
+                changedAccounts.add(account);
+            }
+        }
+    }
+
+    /**
+     * Escapes a field so that it contains no commas or line breaks.
+     *
+     * @param field the field
+     * @return the escaped field
+     */
+    private static String escape(String field) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            String replacement = c == '\\' ? "\\\\" : c == ',' ? "\\c" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(field.length() + 8).append(field, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? field : escaped.toString();
+    }
+
+    /**
+     * Reverses {@link #escape(String)}.
+     *
+     * @param field the escaped field
+     * @return the original field
+     * @throws IllegalArgumentException if the field holds an invalid escape
+     */
+    private static String unescape(String field) {
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder unescaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\') {
+                unescaped.append(c);
+                continue;
+            }
+            if (++i == field.length()) {
+                throw new IllegalArgumentException("Unterminated escape in journal field");
+            }
+            switch (field.charAt(i)) {
+                case '\\':
+                    unescaped.append('\\');
+                    break;
+                case 'c':
+                    unescaped.append(',');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid escape in journal field: \\" + field.charAt(i));
+            }
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Starts a checkpoint: the records appended so far are moved aside and later records go to a
+     * fresh journal file. If an earlier checkpoint did not complete, the current records are added
+     * to the ones it kept, so nothing is dropped before a snapshot covers it.
+     * <p>
+     * Only the position of the checkpoint is recorded here, so callers can start it while holding
+     * their own lock. The records are flushed and moved aside on the group commit thread, and the
+     * returned future must complete before {@link #completeCheckpoint()} is called.
+     * </p>
+     *
+     * @return a future that completes once the records are moved aside
+     */
+    public CompletableFuture<Void> beginCheckpoint() {
+        return writer.submitAction(() -> {
+            synchronized (this) {
+                moveRecordsToCheckpoint();
+            }
+        });
+    }
+
+    /**
+     * Moves the journal file aside, or adds its records to an unfinished checkpoint.
+     */
+    private void moveRecordsToCheckpoint() {
+        closeChannel();
+        Path checkpointPath = checkpointPath();
+        try {
+            if (!Files.exists(journalPath)) {
+                return;
+            }
+            if (!Files.exists(checkpointPath)) {
+                Files.move(journalPath, checkpointPath, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+
+            try (FileChannel checkpoint = FileChannel.open(checkpointPath,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                 FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+                long position = 0;
+                long size = journal.size();
+                while (position < size) {
+                    position += journal.transferTo(position, size - position, checkpoint);
+                }
+                checkpoint.force(false);
+            }
+            Files.delete(journalPath);
+        } catch (IOException e) {
+            System.err.println("Error starting account journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Completes a checkpoint by deleting the records moved aside by {@link #beginCheckpoint()}.
+     * Called once the new snapshot has been written.
+     */
+    public synchronized void completeCheckpoint() {
+        try {
+            Files.deleteIfExists(checkpointPath());
+        } catch (IOException e) {
+            System.err.println("Error completing account journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Commits outstanding records and closes the journal file.
+     */
+    public void close() {
+        writer.close();
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing account journal: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private Path checkpointPath() {
+        return journalPath.resolveSibling(journalPath.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Opens the journal file for appending if it is not open yet.
+     *
+     * @return the journal channel
+     * @throws IOException if the file cannot be opened
+     */
+    private FileChannel getChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
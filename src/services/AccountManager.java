@@ -3,9 +3,18 @@ package src.services;
 import src.exceptions.InvalidAccountException;
 import src.models.*;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -13,15 +22,49 @@ import java.util.stream.Collectors;
  */
 public class AccountManager {
     private final List<Account> accounts;
+    private final AccountRegistry registry; // Accounts by number, sharded so lookups run without the manager lock
+    private final TrigramIndex nameIndex; // Holder name trigrams to positions in the accounts list
+    private final AccountCategoryIndex categoryIndex; // Accounts by type and by active/closed status
+    private final PrefixTrie numberCompletions; // Account numbers to positions in the accounts list
+    private final PrefixTrie nameCompletions; // Normalized holder names and their words to positions
+    private final BKTree fuzzyNameIndex; // Normalized holder names and their words, by edit distance
+    private final AccountStateTable stateTable; // Copy-on-write account states for snapshots
+    private final Set<Account> dirtyAccounts; // Accounts changed since the last save
     private static AccountManager instance;
+    private static final int EXPORT_PAGE_SIZE = 1000; // Accounts fetched per page when exporting
     private final CSVUtility csvUtility;
+    private final SnapshotUtility snapshotUtility;
+    private final AccountJournal journal;
+    private final TransactionStore transactionStore;
+    private final TransactionPageCache transactionCache; // Pages of older transactions read back from the store
+    private final PersistenceService persistenceService;
+    private final Object saveLock = new Object(); // Keeps saves from interleaving their journal checkpoints
 
     /**
      * Private constructor to initialize the AccountManager and load accounts from CSV.
      */
     private AccountManager() {
         this.csvUtility = new CSVUtility();
-        this.accounts = csvUtility.loadAccounts(); // Load accounts on initialization
+        this.snapshotUtility = new SnapshotUtility();
+        this.journal = new AccountJournal();
+        this.transactionStore = new TransactionStore();
+        for (String accountNumber : transactionStore.getAccountNumbers()) {
+            // Never hand out a number that still has stored history, even if its account is gone
+            AccountNumberAllocator.getInstance().markUsed(accountNumber);
+        }
+        this.transactionCache = new TransactionPageCache(transactionStore);
+        TransactionLog.setArchive(transactionCache); // Accounts keep only their recent transactions in memory
+        this.accounts = new ArrayList<>();
+        this.registry = new AccountRegistry();
+        this.nameIndex = new TrigramIndex();
+        this.categoryIndex = new AccountCategoryIndex();
+        this.numberCompletions = new PrefixTrie();
+        this.nameCompletions = new PrefixTrie();
+        this.fuzzyNameIndex = new BKTree();
+        this.stateTable = new AccountStateTable();
+        this.dirtyAccounts = new LinkedHashSet<>();
+        this.persistenceService = new PersistenceService(this::saveChanges);
+        loadAccounts(); // Load accounts on initialization
     }
 
     /**
@@ -40,29 +83,374 @@ public class AccountManager {
      * Adds a new account to the manager.
      *
      * @param account the account to be added
+     * @return true if the account was added, false if its number is invalid or already in use
      */
-    public void addAccount(Account account) {
+    public boolean addAccount(Account account) {
         // Ensure that the account number is not incremented
-        if (!accountNumberExists(account.getAccountNumber())) {
-            accounts.add(account); // Add the new account to the list
-        } else {
+        int key = AccountRegistry.accountKey(account.getAccountNumber());
+        if (key == AccountRegistry.NO_KEY) {
+            System.err.println("Invalid account number: " + account.getAccountNumber());
+            return false;
+        }
+        if (registry.putIfAbsent(key, account) != null) { // Only locks the shard of the number
             System.err.println("Account number already exists: " + account.getAccountNumber());
+            return false;
+        }
+
+        synchronized (this) {
+            accounts.add(account); // Add the new account to the list
+            indexAppended(account);
+            dirtyAccounts.add(account);
+            journal.append(AccountJournal.Operation.CREATE, account.getBalance(), account);
+        }
+
+        List<Transaction> transactions = account.getTransactions();
+        for (int i = 0; i < transactions.size(); i++) { // Persist the opening deposit
+            if (transactionStore.append(account.getAccountNumber(), transactions.get(i))) {
+                account.markTransactionPersisted(i);
+            }
+        }
+        persistenceService.requestSave();
+        return true;
+    }
+
+    /**
+     * Records a mutation of one or more accounts in the journal.
+     * Called by the accounts after every change so that the change survives a restart
+     * without rewriting the whole CSV file. The journal record is forced to disk with the next
+     * group commit and the snapshot is updated in the background.
+     *
+     * @param operation the kind of mutation
+     * @param amount the amount involved in the mutation
+     * @param changedAccounts the accounts changed by the mutation
+     * @return a future that completes once the change is durable
+     */
+    public CompletableFuture<Void> recordChange(AccountJournal.Operation operation, double amount,
+                                                Account... changedAccounts) {
+        CompletableFuture<Void> committed;
+        synchronized (this) {
+            committed = journal.append(operation, amount, changedAccounts);
+            Collections.addAll(dirtyAccounts, changedAccounts);
+            for (Account account : changedAccounts) {
+                int position = categoryIndex.positionOf(account);
+                if (position >= 0) {
+                    stateTable.set(position, AccountState.of(account));
+                }
+            }
+            if (operation == AccountJournal.Operation.CLOSE || operation == AccountJournal.Operation.REOPEN) {
+                for (Account account : changedAccounts) {
+                    categoryIndex.updateStatus(account);
+                }
+            }
         }
+        persistenceService.requestSave();
+        return committed;
     }
 
     /**
-     * Saves all accounts to a CSV file.
+     * Takes a point-in-time snapshot of all accounts for reporting.
+     * The snapshot shares unchanged state with the live accounts and is not affected by later
+     * changes, so long reports read a consistent view while clerks keep working.
+     *
+     * @return the snapshot
      */
-    public void saveAccounts() {
-        csvUtility.saveAccounts(accounts); // Save accounts when exiting
+    public synchronized AccountSnapshot createSnapshot() {
+        return stateTable.snapshot();
     }
 
     /**
-     * Loads accounts from a CSV file, clearing existing accounts.
+     * Gets the group commit statistics of the account journal.
+     *
+     * @return the batch size and commit latency statistics
+     */
+    public GroupCommitWriter.Statistics getCommitStatistics() {
+        return journal.getCommitStatistics();
+    }
+
+    /**
+     * Persists a transaction logged by an account.
+     *
+     * @param accountNumber the account the transaction belongs to
+     * @param transaction the transaction to persist
+     * @return true if the transaction was written, false if it is not in the store
      */
-    public void loadAccounts() {
+    public boolean recordTransaction(String accountNumber, Transaction transaction) {
+        return transactionStore.append(accountNumber, transaction);
+    }
+
+    /**
+     * Gets the store holding the persisted transaction history of all accounts.
+     *
+     * @return the transaction store
+     */
+    public TransactionStore getTransactionStore() {
+        return transactionStore;
+    }
+
+    /**
+     * Sets the heap size the cached pages of older transactions may take.
+     *
+     * @param budget the estimated size in bytes
+     */
+    public void setTransactionCacheBudget(long budget) {
+        transactionCache.setBudget(budget);
+    }
+
+    /**
+     * Saves all accounts to the binary snapshot and clears the journal it now covers.
+     *
+     * @return true if the snapshot was written, false if the accounts stay unsaved
+     */
+    public boolean saveAccounts() {
+        synchronized (saveLock) {
+            List<Account> savedAccounts;
+            List<Account> changedAccounts;
+            CompletableFuture<Void> checkpoint;
+            synchronized (this) {
+                savedAccounts = new ArrayList<>(accounts);
+                changedAccounts = new ArrayList<>(dirtyAccounts);
+                dirtyAccounts.clear();
+                checkpoint = journal.beginCheckpoint(); // Changes made while saving go to a fresh journal
+            }
+
+            checkpoint.join(); // Flushed and moved aside without holding up clerks
+            if (snapshotUtility.saveAccounts(savedAccounts)) {
+                journal.completeCheckpoint();
+                return true;
+            }
+            markUnsaved(changedAccounts);
+            return false;
+        }
+    }
+
+    /**
+     * Saves only the accounts changed since the last save by rewriting their snapshot records
+     * in place, then clears the journal. Falls back to a full save when there is no snapshot yet
+     * or it cannot be updated in place.
+     *
+     * @return true if the changes were written, false if they stay unsaved
+     */
+    public boolean saveChanges() {
+        synchronized (saveLock) {
+            List<Account> changedAccounts;
+            CompletableFuture<Void> checkpoint;
+            synchronized (this) {
+                if (dirtyAccounts.isEmpty() && snapshotUtility.exists()) {
+                    return true;
+                }
+                changedAccounts = new ArrayList<>(dirtyAccounts);
+                dirtyAccounts.clear();
+                checkpoint = journal.beginCheckpoint(); // Changes made while saving go to a fresh journal
+            }
+
+            checkpoint.join(); // Flushed and moved aside without holding up clerks
+            if (snapshotUtility.saveChanges(changedAccounts)) {
+                journal.completeCheckpoint();
+                return true;
+            }
+            markUnsaved(changedAccounts);
+            return saveAccounts();
+        }
+    }
+
+    /**
+     * Puts accounts back into the unsaved set after a failed save.
+     *
+     * @param changedAccounts the accounts the save did not cover
+     */
+    private synchronized void markUnsaved(List<Account> changedAccounts) {
+        dirtyAccounts.addAll(changedAccounts);
+    }
+
+    /**
+     * Requests a background save of the changed accounts. Bursts of requests are written once.
+     *
+     * @return a future that completes once the changes made so far are saved
+     */
+    public CompletableFuture<Void> requestSave() {
+        return persistenceService.requestSave();
+    }
+
+    /**
+     * Saves outstanding changes and waits until they are written.
+     */
+    public void flush() {
+        persistenceService.flush();
+    }
+
+    /**
+     * Flushes outstanding changes, stops the background saves and closes the persistence files.
+     * Called when the application exits.
+     */
+    public void shutdown() {
+        persistenceService.shutdown();
+        journal.close();
+        transactionStore.close();
+    }
+
+    /**
+     * Gets the number of accounts changed since the last save.
+     *
+     * @return the number of unsaved accounts
+     */
+    public synchronized int getUnsavedAccountCount() {
+        return dirtyAccounts.size();
+    }
+
+    /**
+     * Loads accounts from the binary snapshot, clearing existing accounts, and replays the journal on top.
+     * The CSV file is imported instead while no snapshot has been written yet.
+     */
+    public synchronized void loadAccounts() {
         accounts.clear(); // Clear existing accounts
-        accounts.addAll(csvUtility.loadAccounts()); // Load accounts from CSV
+        registry.clear();
+        nameIndex.clear();
+        categoryIndex.clear();
+        numberCompletions.clear();
+        nameCompletions.clear();
+        fuzzyNameIndex.clear();
+        stateTable.clear();
+        dirtyAccounts.clear();
+        if (snapshotUtility.exists()) {
+            accounts.addAll(snapshotUtility.loadAccounts()); // Load accounts from the snapshot
+        } else {
+            accounts.addAll(csvUtility.loadAccounts()); // First start: import accounts from CSV
+        }
+        journal.replay(accounts, dirtyAccounts); // Reapply changes made since the last save
+        transactionCache.clear();
+
+        for (Account account : accounts) {
+            account.setArchivedTransactionCount(transactionStore.getTransactionCount(account.getAccountNumber()));
+            int key = AccountRegistry.accountKey(account.getAccountNumber());
+            if (key == AccountRegistry.NO_KEY) {
+                System.err.println("Invalid account number: " + account.getAccountNumber());
+            } else {
+                registry.put(key, account);
+            }
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            indexAt(i, accounts.get(i));
+        }
+    }
+
+    /**
+     * Imports accounts from a CSV file, parsing large files on all cores.
+     * Accounts whose number is already registered are skipped. The imported accounts
+     * are appended to the snapshot in one background save instead of one journal record each.
+     *
+     * @param csvFile the CSV file to import
+     * @return the number of accounts imported
+     */
+    public synchronized int importAccounts(Path csvFile) {
+        List<Account> imported = csvUtility.loadAccounts(csvFile);
+
+        int added = 0;
+        for (Account account : imported) {
+            int key = AccountRegistry.accountKey(account.getAccountNumber());
+            if (key == AccountRegistry.NO_KEY) {
+                System.err.println("Invalid account number: " + account.getAccountNumber());
+            } else if (registry.putIfAbsent(key, account) == null) {
+                account.setArchivedTransactionCount(transactionStore.getTransactionCount(account.getAccountNumber()));
+                accounts.add(account);
+                indexAppended(account);
+                dirtyAccounts.add(account);
+                added++;
+            } else {
+                System.err.println("Account number already exists: " + account.getAccountNumber());
+            }
+        }
+
+        if (added > 0) {
+            persistenceService.requestSave();
+        }
+        return added;
+    }
+
+    /**
+     * Adds the account just appended to the accounts list to the position-based indexes.
+     *
+     * @param account the last account in the list
+     */
+    private void indexAppended(Account account) {
+        indexAt(accounts.size() - 1, account);
+    }
+
+    /**
+     * Adds an account to the name, category and completion indexes.
+     * Accounts are indexed in the order of their positions.
+     *
+     * @param position the position of the account in the accounts list
+     * @param account the account
+     */
+    private void indexAt(int position, Account account) {
+        nameIndex.add(position, account.getAccountHolderName().toLowerCase());
+        categoryIndex.add(position, account);
+        stateTable.append(AccountState.of(account));
+        numberCompletions.add(account.getAccountNumber(), position);
+
+        // Index every word start so that "cruz" completes "Juan Dela Cruz" as well
+        String name = normalizeName(account.getAccountHolderName());
+        fuzzyNameIndex.add(name, position);
+        for (int start = 0; start < name.length(); start = name.indexOf(' ', start) + 1) {
+            int end = name.indexOf(' ', start);
+            nameCompletions.add(name.substring(start), position);
+            if (end < 0) {
+                fuzzyNameIndex.add(name.substring(start), position);
+                break;
+            }
+            fuzzyNameIndex.add(name.substring(start, end), position);
+        }
+    }
+
+    /**
+     * Normalizes a holder name for completion: lower case, trimmed, single spaces.
+     *
+     * @param name the holder name or typed prefix
+     * @return the normalized name
+     */
+    private static String normalizeName(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Exports all accounts to the CSV file. The accounts are fetched page by page, so only one
+     * page is held at a time and clerks are only blocked while a page is collected.
+     *
+     * @return true if the file was written, false otherwise
+     */
+    public boolean exportAccountsToCsv() {
+        AccountQuery query = new AccountQuery(account -> true, AccountQuery.SortKey.LIST_ORDER, EXPORT_PAGE_SIZE);
+        return csvUtility.saveAccounts(() -> pagedAccounts(query));
+    }
+
+    /**
+     * Iterates the accounts matching a query, fetching the next page when the current one is used up.
+     *
+     * @param query the query to page through
+     * @return an iterator over all matching accounts
+     */
+    private Iterator<Account> pagedAccounts(AccountQuery query) {
+        return new Iterator<Account>() {
+            private AccountPage page = getAccountPage(query, null);
+            private Iterator<Account> pageAccounts = page.getAccounts().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!pageAccounts.hasNext() && page.hasMore()) {
+                    page = getAccountPage(query, page.getContinuationToken());
+                    pageAccounts = page.getAccounts().iterator();
+                }
+                return pageAccounts.hasNext();
+            }
+
+            @Override
+            public Account next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pageAccounts.next();
+            }
+        };
     }
 
     /**
@@ -86,43 +474,195 @@ public class AccountManager {
         return Collections.unmodifiableList(accounts);
     }
 
+    /**
+     * Gets one page of the accounts matching a query.
+     * Pass a null token for the first page and the token of the previous page for the next one.
+     * In list order a page stops scanning once it is full; other orders scan all accounts but
+     * keep only one page worth of them, so memory use is bounded by the page size either way.
+     * Each page is collected under the manager lock. Accounts keep their list positions, so a
+     * token stays valid when accounts are added between pages.
+     *
+     * @param query the filter, order and page size
+     * @param continuationToken the token of the previous page, or null for the first page
+     * @return the page, with the token of the next page if there are more accounts
+     * @throws IllegalArgumentException if the token does not belong to a query with the same order
+     */
+    public synchronized AccountPage getAccountPage(AccountQuery query, String continuationToken) {
+        AccountQuery.Anchor after = continuationToken != null ? query.readToken(continuationToken) : null;
+        int pageSize = query.getPageSize();
+
+        if (query.getSortKey() == AccountQuery.SortKey.LIST_ORDER) {
+            List<Account> page = new ArrayList<>(pageSize);
+            int position = after != null ? after.position + 1 : 0;
+            int lastPosition = -1;
+            for (; position < accounts.size(); position++) {
+                Account account = accounts.get(position);
+                if (query.getFilter().test(account)) {
+                    if (page.size() == pageSize) {
+                        return new AccountPage(page, query.createToken(null, lastPosition)); // One more match exists
+                    }
+                    page.add(account);
+                    lastPosition = position;
+                }
+            }
+            return new AccountPage(page, null);
+        }
+
+        // Keep the pageSize + 1 smallest accounts after the anchor; the head is the largest of them
+        PriorityQueue<PageEntry> smallest = new PriorityQueue<>(pageSize + 1,
+                (a, b) -> AccountQuery.compare(b.value, b.position, a.value, a.position));
+        for (int position = 0; position < accounts.size(); position++) {
+            Account account = accounts.get(position);
+            if (!query.getFilter().test(account)) {
+                continue;
+            }
+            Comparable<?> value = query.sortValue(account);
+            if (after != null && AccountQuery.compare(value, position, after.value, after.position) <= 0) {
+                continue; // On an earlier page
+            }
+            if (smallest.size() <= pageSize) {
+                smallest.add(new PageEntry(account, value, position));
+            } else if (AccountQuery.compare(value, position, smallest.peek().value, smallest.peek().position) < 0) {
+                smallest.poll();
+                smallest.add(new PageEntry(account, value, position));
+            }
+        }
+
+        boolean more = smallest.size() > pageSize;
+        if (more) {
+            smallest.poll(); // Only used to tell that a next page exists
+        }
+        PageEntry[] entries = smallest.toArray(new PageEntry[0]);
+        Arrays.sort(entries, (a, b) -> AccountQuery.compare(a.value, a.position, b.value, b.position));
+
+        List<Account> page = new ArrayList<>(entries.length);
+        for (PageEntry entry : entries) {
+            page.add(entry.account);
+        }
+        PageEntry last = entries.length > 0 ? entries[entries.length - 1] : null;
+        return new AccountPage(page, more ? query.createToken(last.value, last.position) : null);
+    }
+
+    /**
+     * An account collected for a sorted page, with its sort value and list position.
+     */
+    private static final class PageEntry {
+        private final Account account;
+        private final Comparable<?> value;
+        private final int position;
+
+        PageEntry(Account account, Comparable<?> value, int position) {
+            this.account = account;
+            this.value = value;
+            this.position = position;
+        }
+    }
+
     /**
      * Gets all active accounts in the system.
      *
-     * @return a list of active accounts
+     * @return a read-only live view of the active accounts, safe to iterate while accounts change
      */
     public List<Account> getActiveAccounts() {
-        return accounts.stream()
-                .filter(Account::isActive)
-                .collect(Collectors.toList());
+        return categoryIndex.getActiveAccounts();
     }
 
     /**
      * Gets all closed accounts in the system.
      *
-     * @return a list of closed accounts
+     * @return a read-only live view of the closed accounts, safe to iterate while accounts change
      */
     public List<Account> getClosedAccounts() {
-        return accounts.stream()
-                .filter(account -> !account.isActive())
-                .collect(Collectors.toList());
+        return categoryIndex.getClosedAccounts();
     }
 
     /**
      * Gets accounts by account holder name.
+     * Names containing the search text, ignoring case, match. Search texts of three or more
+     * characters only check the accounts the name index finds for them.
      *
      * @param name the account holder name to search for
      * @return a list of matching accounts
      */
-    public List<Account> getAccountsByName(String name) {
+    public synchronized List<Account> getAccountsByName(String name) {
         if (name == null || name.trim().isEmpty()) {
             return new ArrayList<>();
         }
 
         String lowerCaseName = name.toLowerCase();
-        return accounts.stream()
-                .filter(account -> account.getAccountHolderName().toLowerCase().contains(lowerCaseName))
-                .collect(Collectors.toList());
+        if (lowerCaseName.length() < TrigramIndex.MIN_QUERY_LENGTH) {
+            return accounts.stream()
+                    .filter(account -> account.getAccountHolderName().toLowerCase().contains(lowerCaseName))
+                    .collect(Collectors.toList());
+        }
+
+        List<Account> matches = new ArrayList<>();
+        for (int position : nameIndex.candidates(lowerCaseName)) {
+            Account account = accounts.get(position);
+            if (account.getAccountHolderName().toLowerCase().contains(lowerCaseName)) {
+                matches.add(account);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets accounts whose holder name, or a word of it, is close to the given name.
+     * Allows one typo for names up to five characters and two for longer names.
+     *
+     * @param name the possibly misspelled holder name
+     * @return the matching accounts, closest first
+     */
+    public List<Account> getAccountsByFuzzyName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return getAccountsByFuzzyName(name, normalizeName(name).length() <= 5 ? 1 : 2);
+    }
+
+    /**
+     * Gets accounts whose holder name, or a word of it, is within the given edit distance of the name.
+     * Case and extra spaces are ignored.
+     *
+     * @param name the possibly misspelled holder name
+     * @param maxDistance the largest number of character insertions, deletions and substitutions
+     * @return the matching accounts, closest first
+     */
+    public synchronized List<Account> getAccountsByFuzzyName(String name, int maxDistance) {
+        List<Account> matches = new ArrayList<>();
+        if (name == null || name.trim().isEmpty()) {
+            return matches;
+        }
+
+        for (BKTree.Match match : fuzzyNameIndex.search(normalizeName(name), maxDistance)) {
+            matches.add(accounts.get(match.getId()));
+        }
+        return matches;
+    }
+
+    /**
+     * Suggests accounts for a partly typed account number or holder name. Text starting with a
+     * digit completes account numbers; other text completes the start of the holder name or of
+     * any word in it, ignoring case.
+     *
+     * @param prefix the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to {@code limit} accounts, in account number or name order
+     */
+    public synchronized List<Account> getCompletions(String prefix, int limit) {
+        List<Account> completions = new ArrayList<>();
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return completions;
+        }
+
+        String trimmed = prefix.trim();
+        int[] positions = Character.isDigit(trimmed.charAt(0))
+                ? numberCompletions.complete(trimmed, limit)
+                : nameCompletions.complete(normalizeName(trimmed), limit);
+        for (int position : positions) {
+            completions.add(accounts.get(position));
+        }
+        return completions;
     }
 
     /**
@@ -137,17 +677,19 @@ public class AccountManager {
             throw new InvalidAccountException("Account number cannot be empty");
         }
 
-        return accounts.stream()
-                .filter(account -> account.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElseThrow(() -> new InvalidAccountException(accountNumber, "Account not found"));
+        int key = AccountRegistry.accountKey(accountNumber);
+        Account account = key != AccountRegistry.NO_KEY ? registry.get(key) : null;
+        if (account == null) {
+            throw new InvalidAccountException(accountNumber, "Account not found");
+        }
+        return account;
     }
 
     /**
      * Applies monthly interest to all investment accounts.
      */
     public void applyMonthlyInterestToAllAccounts() {
-        accounts.stream()
+        getAccountsByType(InvestmentAccount.class).stream()
                 .filter(account -> account.isActive() && account instanceof InvestmentAccount)
                 .map(account -> (InvestmentAccount) account)
                 .forEach(InvestmentAccount::applyInterest);
@@ -157,29 +699,27 @@ public class AccountManager {
      * Applies monthly interest to all credit card accounts.
      */
     public void applyMonthlyInterestToCreditCards() {
-        accounts.stream()
+        getAccountsByType(CreditCardAccount.class).stream()
                 .filter(account -> account.isActive() && account instanceof CreditCardAccount)
                 .map(account -> (CreditCardAccount) account)
                 .forEach(CreditCardAccount::applyMonthlyInterest);
     }
 
     /**
-     * Gets all accounts of a specific type.
+     * Gets all accounts of a specific type, including accounts of its subclasses.
      *
      * @param accountType the type of accounts to get
-     * @return a list of accounts of the specified type
+     * @return a read-only live view of the accounts of the specified type, safe to iterate while accounts change
      */
     public List<Account> getAccountsByType(Class<? extends Account> accountType) {
-        return accounts.stream()
-                .filter(account -> accountType.isInstance(account))
-                .collect(Collectors.toList());
+        return categoryIndex.getAccountsOfType(accountType);
     }
 
     /**
      * Resets monthly transaction counts for all checking accounts.
      */
     public void resetMonthlyTransactionCounts() {
-        accounts.stream()
+        getAccountsByType(CheckingAccount.class).stream()
                 .filter(account -> account.isActive() && account instanceof CheckingAccount)
                 .map(account -> (CheckingAccount) account)
                 .forEach(CheckingAccount::resetMonthlyTransactionCount);
@@ -189,7 +729,7 @@ public class AccountManager {
      * Resets daily withdrawal amounts for all bank accounts.
      */
     public void resetDailyWithdrawalAmounts() {
-        accounts.stream()
+        getAccountsByType(BankAccount.class).stream()
                 .filter(account -> account.isActive() && account instanceof BankAccount)
                 .map(account -> (BankAccount) account)
                 .forEach(BankAccount::resetDailyWithdrawalAmount);
@@ -202,6 +742,18 @@ public class AccountManager {
      * @return true if the account number exists, false otherwise
      */
     public boolean accountNumberExists(String accountNumber) {
-        return accounts.stream().anyMatch(account -> account.getAccountNumber().equals(accountNumber));
+        int key = AccountRegistry.accountKey(accountNumber);
+        return key != AccountRegistry.NO_KEY && registry.contains(key);
+    }
+
+    /**
+     * Passes a consistent snapshot of each registry shard to the action, one shard at a time.
+     * Registrations in other shards continue while a shard is copied, and none are blocked
+     * while the action runs.
+     *
+     * @param action receives the accounts of one shard at a time
+     */
+    public void forEachAccountShard(Consumer<List<Account>> action) {
+        registry.forEachShard(action);
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package src.services;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out unused account numbers without trial and error.
+ * <p>
+ * Every account type owns a range of one million numbers above its prefix. Each range keeps a
+ * bit set of the numbers in use and walks a fixed permutation of its suffixes
+ * ({@code suffix = (MULTIPLIER * i + offset) mod 1000000}), so numbers still look scattered but
+ * the walk never repeats before the whole range has been visited. Allocation skips numbers that
+ * are marked as used, which makes it amortized O(1) instead of drawing random numbers until one
+ * is free.
+ * </p>
+ * <p>
+ * The allocator is restart-safe because every account restored from disk marks its persisted
+ * number as used instead of allocating one, see {@link #markUsed(String)}, and so does every
+ * number that still has history in the {@link TransactionStore}. It warns once a range is 90%
+ * used.
+ * </p>
+ */
+public class AccountNumberAllocator {
+    private static final int RANGE_SIZE = 1000000;
+    private static final int MULTIPLIER = 387643; // Coprime to RANGE_SIZE, so the walk visits every suffix once
+    private static final int NEAR_FULL_PERCENT = 90;
+
+    private static final AccountNumberAllocator instance = new AccountNumberAllocator();
+
+    private final Map<Integer, Range> ranges = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+
+    /**
+     * Gets the allocator shared by all accounts.
+     *
+     * @return the account number allocator
+     */
+    public static AccountNumberAllocator getInstance() {
+        return instance;
+    }
+
+    /**
+     * Allocates an unused account number in the range of a prefix.
+     *
+     * @param prefix the account type prefix, a multiple of one million
+     * @return the allocated account number
+     * @throws IllegalStateException if every number of the range is in use
+     */
+    public int allocate(int prefix) {
+        return prefix + range(prefix).allocate();
+    }
+
+    /**
+     * Marks an account number as used, for example when an account is restored from disk.
+     * Numbers that are not numeric are ignored.
+     *
+     * @param accountNumber the account number in use
+     */
+    public void markUsed(String accountNumber) {
+        int key = AccountRegistry.accountKey(accountNumber);
+        if (key != AccountRegistry.NO_KEY) {
+            range(prefixOf(key)).mark(key % RANGE_SIZE, true);
+        }
+    }
+
+    /**
+     * Returns an account number to its range so it can be allocated again.
+     *
+     * @param accountNumber the account number no longer in use
+     */
+    public void release(String accountNumber) {
+        int key = AccountRegistry.accountKey(accountNumber);
+        if (key != AccountRegistry.NO_KEY) {
+            range(prefixOf(key)).mark(key % RANGE_SIZE, false);
+        }
+    }
+
+    /**
+     * Gets the number of account numbers in use in the range of a prefix.
+     *
+     * @param prefix the account type prefix
+     * @return the number of used account numbers
+     */
+    public int getUsedCount(int prefix) {
+        return range(prefix).getUsedCount();
+    }
+
+    /**
+     * Gets the number of account numbers a prefix can hand out in total.
+     *
+     * @return the size of every prefix range
+     */
+    public int getRangeSize() {
+        return RANGE_SIZE;
+    }
+
+    private Range range(int prefix) {
+        return ranges.computeIfAbsent(prefix, p -> new Range(p, random.nextInt(RANGE_SIZE)));
+    }
+
+    private static int prefixOf(int accountNumber) {
+        return accountNumber - accountNumber % RANGE_SIZE;
+    }
+
+    /**
+     * The numbers of one prefix.
+     */
+    private static final class Range {
+        private final int prefix;
+        private final int offset;
+        private final BitSet used = new BitSet(RANGE_SIZE);
+        private int usedCount;
+        private int step; // Position in the permutation walk
+        private boolean warned;
+
+        Range(int prefix, int offset) {
+            this.prefix = prefix;
+            this.offset = offset;
+        }
+
+        synchronized int allocate() {
+            if (usedCount == RANGE_SIZE) {
+                throw new IllegalStateException("No account numbers left for prefix " + prefix);
+            }
+
+            int suffix;
+            do {
+                suffix = (int) (((long) MULTIPLIER * step + offset) % RANGE_SIZE);
+                step = step + 1 == RANGE_SIZE ? 0 : step + 1;
+            } while (used.get(suffix));
+
+            mark(suffix, true);
+            return suffix;
+        }
+
+        synchronized void mark(int suffix, boolean inUse) {
+            if (used.get(suffix) == inUse) {
+                return;
+            }
+            used.set(suffix, inUse);
+            usedCount += inUse ? 1 : -1;
+
+            if (!warned && usedCount * 100L >= (long) RANGE_SIZE * NEAR_FULL_PERCENT) {
+                warned = true;
+                System.err.println("Account numbers for prefix " + prefix + " are almost used up: "
+                        + usedCount + " of " + RANGE_SIZE + " in use");
+            }
+        }
+
+        synchronized int getUsedCount() {
+            return usedCount;
+        }
+    }
+}
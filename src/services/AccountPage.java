@@ -0,0 +1,52 @@
+package src.services;
+
+import src.models.Account;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the results of an {@link AccountQuery}.
+ */
+public class AccountPage {
+    private final List<Account> accounts;
+    private final String continuationToken;
+
+    /**
+     * Creates a page.
+     *
+     * @param accounts the accounts on the page
+     * @param continuationToken the token of the next page, or null if this is the last page
+     */
+    public AccountPage(List<Account> accounts, String continuationToken) {
+        this.accounts = Collections.unmodifiableList(accounts);
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Gets the accounts on this page.
+     *
+     * @return an unmodifiable list of the accounts
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Gets the token to pass for the next page.
+     *
+     * @return the continuation token, or null if there are no more accounts
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Checks whether more accounts follow this page.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasMore() {
+        return continuationToken != null;
+    }
+}
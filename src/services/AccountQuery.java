@@ -0,0 +1,160 @@
+package src.services;
+
+import src.models.Account;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.function.Predicate;
+
+/**
+ * A paged account query: which accounts to return, in which order and how many per page.
+ * <p>
+ * Pages are fetched with {@link AccountManager#getAccountPage(AccountQuery, String)}. Each page
+ * carries a continuation token holding the sort value and list position of its last account,
+ * and the next page starts right after that account. No result list is kept between pages, so
+ * walking millions of accounts only ever holds one page in memory.
+ * </p>
+ */
+public class AccountQuery {
+    /**
+     * Orders in which accounts can be paged. Accounts with the same sort value keep their
+     * account list order.
+     */
+    public enum SortKey {
+        /** Order in which the accounts were added. */
+        LIST_ORDER,
+        /** Account number. */
+        ACCOUNT_NUMBER,
+        /** Holder name, ignoring case. */
+        HOLDER_NAME,
+        /** Balance, lowest first. */
+        BALANCE,
+        /** Opening date, oldest first. */
+        OPENING_DATE
+    }
+
+    private final Predicate<Account> filter;
+    private final SortKey sortKey;
+    private final int pageSize;
+
+    /**
+     * Creates a query.
+     *
+     * @param filter the condition accounts must meet
+     * @param sortKey the order of the results
+     * @param pageSize the maximum number of accounts per page
+     */
+    public AccountQuery(Predicate<Account> filter, SortKey sortKey, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.filter = filter;
+        this.sortKey = sortKey;
+        this.pageSize = pageSize;
+    }
+
+    public Predicate<Account> getFilter() {
+        return filter;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the value an account is sorted by.
+     *
+     * @param account the account
+     * @return the sort value, or null when sorting by list order
+     */
+    Comparable<?> sortValue(Account account) {
+        switch (sortKey) {
+            case ACCOUNT_NUMBER:
+                return account.getAccountNumber();
+            case HOLDER_NAME:
+                return account.getAccountHolderName().toLowerCase();
+            case BALANCE:
+                return account.getBalance();
+            case OPENING_DATE:
+                return account.getOpeningDate();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Compares two accounts by sort value and then by list position.
+     *
+     * @param value the sort value of the first account
+     * @param position the list position of the first account
+     * @param otherValue the sort value of the second account
+     * @param otherPosition the list position of the second account
+     * @return a negative number, zero or a positive number as the first account comes before, at or after the second
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Comparable value, int position, Comparable otherValue, int otherPosition) {
+        int byValue = value == null ? 0 : value.compareTo(otherValue);
+        return byValue != 0 ? byValue : Integer.compare(position, otherPosition);
+    }
+
+    /**
+     * Creates the continuation token for a page ending at the given account.
+     *
+     * @param value the sort value of the last account on the page
+     * @param position the list position of the last account on the page
+     * @return the opaque token
+     */
+    String createToken(Comparable<?> value, int position) {
+        String payload = sortKey.name() + '\n' + position + '\n' + (value != null ? value.toString() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a continuation token created by a page of this query.
+     *
+     * @param token the token
+     * @return the sort value and list position of the last account of the previous page
+     * @throws IllegalArgumentException if the token is malformed or belongs to a query with another order
+     */
+    Anchor readToken(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 3);
+            if (parts.length != 3 || !parts[0].equals(sortKey.name())) {
+                throw new IllegalArgumentException("Continuation token does not belong to this query");
+            }
+
+            int position = Integer.parseInt(parts[1]);
+            switch (sortKey) {
+                case ACCOUNT_NUMBER:
+                case HOLDER_NAME:
+                    return new Anchor(parts[2], position);
+                case BALANCE:
+                    return new Anchor(Double.parseDouble(parts[2]), position);
+                case OPENING_DATE:
+                    return new Anchor(LocalDate.parse(parts[2]), position);
+                default:
+                    return new Anchor(null, position);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+
+    /**
+     * The last account of a page: results continue after it.
+     */
+    static final class Anchor {
+        final Comparable<?> value;
+        final int position;
+
+        Anchor(Comparable<?> value, int position) {
+            this.value = value;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package src.services;
+
+import src.models.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe registry of accounts by account number.
+ * <p>
+ * Accounts are spread over a power-of-two number of shards by a hash of their account number.
+ * Every shard is an {@link IntAccountMap} guarded by its own read-write lock, so lookups only
+ * take a read lock and never wait for each other, and registrations only lock the one shard
+ * they write to. Bulk iteration copies one shard at a time under its read lock, so every shard
+ * is seen in a consistent state without stopping the whole registry.
+ * </p>
+ */
+public class AccountRegistry {
+    /**
+     * Key of account numbers that are not 1 to 9 digits.
+     */
+    public static final int NO_KEY = -1;
+
+    private final Shard[] shards;
+    private final int shardShift; // Shard index is taken from the top bits of the spread key
+
+    /**
+     * Creates a registry with four shards per available processor.
+     */
+    public AccountRegistry() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Creates a registry with at least the given number of shards.
+     *
+     * @param minShardCount the minimum number of shards, rounded up to a power of two
+     */
+    public AccountRegistry(int minShardCount) {
+        int shardCount = Integer.highestOneBit(Math.max(1, Math.min(minShardCount, 1 << 16)));
+        if (shardCount < minShardCount) {
+            shardCount <<= 1;
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        shardShift = 32 - Integer.numberOfTrailingZeros(shardCount);
+    }
+
+    /**
+     * Gets the account with the given number.
+     *
+     * @param key the account number as returned by {@link #accountKey(String)}
+     * @return the account, or null if there is none
+     */
+    public Account get(int key) {
+        Shard shard = shardFor(key);
+        shard.lock.readLock().lock();
+        try {
+            return shard.accounts.get(key);
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether an account number is registered.
+     *
+     * @param key the account number as returned by {@link #accountKey(String)}
+     * @return true if the account number is registered
+     */
+    public boolean contains(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Registers an account unless its number is taken. The check and the registration are atomic.
+     *
+     * @param key the account number as returned by {@link #accountKey(String)}
+     * @param account the account
+     * @return the account already registered under the number, or null if the account was registered
+     */
+    public Account putIfAbsent(int key, Account account) {
+        Shard shard = shardFor(key);
+        shard.lock.writeLock().lock();
+        try {
+            return shard.accounts.putIfAbsent(key, account);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers an account, replacing the account registered under the same number.
+     *
+     * @param key the account number as returned by {@link #accountKey(String)}
+     * @param account the account
+     * @return the account previously registered under the number, or null
+     */
+    public Account put(int key, Account account) {
+        Shard shard = shardFor(key);
+        shard.lock.writeLock().lock();
+        try {
+            return shard.accounts.put(key, account);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the account with the given number.
+     *
+     * @param key the account number as returned by {@link #accountKey(String)}
+     * @return the removed account, or null if there was none
+     */
+    public Account remove(int key) {
+        Shard shard = shardFor(key);
+        shard.lock.writeLock().lock();
+        try {
+            return shard.accounts.remove(key);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of registered accounts. Shards are counted one after the other, so the
+     * result may miss registrations made while counting.
+     *
+     * @return the number of accounts
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                size += shard.accounts.size();
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all accounts. Every shard is write-locked for the duration, so no reader sees a
+     * partly cleared registry.
+     */
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.accounts.clear();
+            }
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Passes a snapshot of every shard to the action. Each snapshot is copied under the shard's
+     * read lock and the action runs after the lock is released, so slow actions do not hold up
+     * registrations.
+     *
+     * @param action receives the accounts of one shard at a time
+     */
+    public void forEachShard(Consumer<List<Account>> action) {
+        for (Shard shard : shards) {
+            List<Account> snapshot;
+            shard.lock.readLock().lock();
+            try {
+                snapshot = new ArrayList<>(shard.accounts.size());
+                shard.accounts.forEach(snapshot::add);
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+            action.accept(snapshot);
+        }
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Converts an account number to its registry key without creating objects.
+     * Only canonical numbers of 1 to 9 digits are valid, which covers every generated number.
+     *
+     * @param accountNumber the account number
+     * @return the account number as an int, or {@link #NO_KEY} if it is not a valid account number
+     */
+    public static int accountKey(String accountNumber) {
+        if (accountNumber == null) {
+            return NO_KEY;
+        }
+        int length = accountNumber.length();
+        if (length == 0 || length > 9 || (accountNumber.charAt(0) == '0' && length > 1)) {
+            return NO_KEY;
+        }
+
+        int key = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NO_KEY;
+            }
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * Picks the shard of a key. Uses different bits than {@link IntAccountMap} so that the keys
+     * of one shard still spread over its table.
+     */
+    private Shard shardFor(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return shardShift == 32 ? shards[0] : shards[h >>> shardShift];
+    }
+
+    /**
+     * One partition of the registry with its lock.
+     */
+    private static final class Shard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntAccountMap accounts = new IntAccountMap();
+    }
+}
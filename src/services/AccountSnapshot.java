@@ -0,0 +1,96 @@
+package src.services;
+
+import src.models.AccountState;
+import src.models.TimeSource;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Frozen, consistent view of all accounts at one point in time.
+ * <p>
+ * Created by {@link AccountManager#createSnapshot()}. A transfer is always seen on both
+ * accounts or on neither, and later deposits, withdrawals and transfers do not show up, so
+ * long reports read a consistent state without blocking clerks.
+ * </p>
+ */
+public class AccountSnapshot implements Iterable<AccountState> {
+    private final AccountState[][] chunks;
+    private final int size;
+    private final LocalDateTime takenAt;
+
+    AccountSnapshot(AccountState[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+        this.takenAt = TimeSource.current().now(); // Pinned clocks give reproducible report timestamps
+    }
+
+    /**
+     * Gets the number of accounts in the snapshot.
+     *
+     * @return the number of accounts
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the state of the account at a position in the account list.
+     *
+     * @param position the account list position
+     * @return the account state
+     */
+    public AccountState get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+        return chunks[position / AccountStateTable.CHUNK_SIZE][position % AccountStateTable.CHUNK_SIZE];
+    }
+
+    /**
+     * Counts the accounts matching a condition.
+     *
+     * @param filter the condition
+     * @return the number of matching accounts
+     */
+    public int count(Predicate<AccountState> filter) {
+        int count = 0;
+        for (AccountState state : this) {
+            if (filter.test(state)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return the snapshot time
+     */
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    @Override
+    public Iterator<AccountState> iterator() {
+        return new Iterator<AccountState>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public AccountState next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(position++);
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package src.services;
+
+import src.models.AccountState;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write table of account states by account list position.
+ * <p>
+ * States are stored in fixed-size chunks. Taking a snapshot only copies the array of chunk
+ * references and starts a new generation; the chunks themselves are shared. The first write
+ * to a chunk after a snapshot copies that chunk, so a snapshot costs one reference per
+ * {@value #CHUNK_SIZE} accounts and every write copies at most one chunk per snapshot.
+ * Readers of a snapshot never see later writes and never block writers.
+ * </p>
+ * <p>
+ * The table is not synchronized; {@link AccountManager} writes to it and takes snapshots
+ * under its own lock.
+ * </p>
+ */
+public class AccountStateTable {
+    static final int CHUNK_SIZE = 1024;
+    private static final int CHUNK_SHIFT = 10;
+
+    private Chunk[] chunks = new Chunk[16];
+    private int size;
+    private long generation; // Chunks of an older generation may be shared with a snapshot
+
+    /**
+     * Appends the state of the account at the next position.
+     *
+     * @param state the account state
+     */
+    public void append(AccountState state) {
+        int chunkIndex = size >>> CHUNK_SHIFT;
+        if (chunkIndex == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunkIndex] == null) {
+            chunks[chunkIndex] = new Chunk(new AccountState[CHUNK_SIZE], generation);
+        }
+        writableChunk(chunkIndex).states[size & (CHUNK_SIZE - 1)] = state;
+        size++;
+    }
+
+    /**
+     * Replaces the state of the account at a position.
+     *
+     * @param position the account list position
+     * @param state the new account state
+     */
+    public void set(int position, AccountState state) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+        writableChunk(position >>> CHUNK_SHIFT).states[position & (CHUNK_SIZE - 1)] = state;
+    }
+
+    /**
+     * Removes all states. Existing snapshots keep their states.
+     */
+    public void clear() {
+        chunks = new Chunk[16];
+        size = 0;
+        generation++;
+    }
+
+    /**
+     * Freezes the current states.
+     *
+     * @return a snapshot that later writes do not change
+     */
+    public AccountSnapshot snapshot() {
+        AccountState[][] frozen = new AccountState[(size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT][];
+        for (int i = 0; i < frozen.length; i++) {
+            frozen[i] = chunks[i].states;
+        }
+        generation++; // Chunks written from now on are copied first
+        return new AccountSnapshot(frozen, size);
+    }
+
+    /**
+     * Gets a chunk that may be written, copying it if a snapshot shares it.
+     */
+    private Chunk writableChunk(int chunkIndex) {
+        Chunk chunk = chunks[chunkIndex];
+        if (chunk.generation != generation) {
+            chunk = new Chunk(chunk.states.clone(), generation);
+            chunks[chunkIndex] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * A block of states with the generation in which it was created.
+     */
+    private static final class Chunk {
+        private final AccountState[] states;
+        private final long generation;
+
+        Chunk(AccountState[] states, long generation) {
+            this.states = states;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package src.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over terms, answering "which terms are within edit distance k of this
+ * query" without comparing the query to every term.
+ * <p>
+ * Each child hangs off its parent under its Levenshtein distance to the parent's term. By the
+ * triangle inequality, a term within distance k of the query can only sit below children whose
+ * edge distance lies within k of the query's distance to the parent, so every other subtree is
+ * skipped. Each term holds the ids of the entries it was added for.
+ * </p>
+ */
+public class BKTree {
+    private Node root;
+    private final Map<String, Node> nodesByTerm = new HashMap<>();
+
+    /**
+     * Adds a term for an id. Adding a known term only records the id.
+     *
+     * @param term the term
+     * @param id the id of the entry the term belongs to
+     */
+    public void add(String term, int id) {
+        Node existing = nodesByTerm.get(term);
+        if (existing != null) {
+            existing.addId(id);
+            return;
+        }
+
+        Node node = new Node(term);
+        node.addId(id);
+        nodesByTerm.put(term, node);
+        if (root == null) {
+            root = node;
+            return;
+        }
+
+        Node parent = root;
+        while (true) {
+            int distance = distance(term, parent.term);
+            Node child = parent.child(distance);
+            if (child == null) {
+                parent.addChild(distance, node);
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    /**
+     * Finds the ids whose terms are within the given edit distance of the query.
+     *
+     * @param query the query
+     * @param maxDistance the largest edit distance to accept
+     * @return the matches, closest first and then by id; each id appears once with its closest distance
+     */
+    public List<Match> search(String query, int maxDistance) {
+        Map<Integer, Integer> closest = new HashMap<>();
+        if (root != null) {
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                int distance = distance(query, node.term);
+                if (distance <= maxDistance) {
+                    for (int i = 0; i < node.idCount; i++) {
+                        closest.merge(node.ids[i], distance, Math::min);
+                    }
+                }
+                for (int i = 0; i < node.childCount; i++) {
+                    if (Math.abs(node.childDistances[i] - distance) <= maxDistance) {
+                        pending.add(node.children[i]);
+                    }
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(closest.size());
+        for (Map.Entry<Integer, Integer> entry : closest.entrySet()) {
+            matches.add(new Match(entry.getKey(), entry.getValue()));
+        }
+        matches.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : Integer.compare(a.id, b.id));
+        return matches;
+    }
+
+    /**
+     * Removes all terms.
+     */
+    public void clear() {
+        root = null;
+        nodesByTerm.clear();
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @return the number of single character insertions, deletions and substitutions between them
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * An id found by a search, with the edit distance of its closest term.
+     */
+    public static final class Match {
+        private final int id;
+        private final int distance;
+
+        private Match(int id, int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    /**
+     * A term with its ids and its children keyed by edit distance.
+     */
+    private static final class Node {
+        private final String term;
+        private int[] ids = new int[1];
+        private int idCount;
+        private int[] childDistances = new int[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childDistances[childCount] = distance;
+            children[childCount++] = child;
+        }
+
+        void addId(int id) {
+            if (idCount > 0 && ids[idCount - 1] == id) {
+                return;
+            }
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount * 2);
+            }
+            ids[idCount++] = id;
+        }
+    }
+}
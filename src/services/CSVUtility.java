@@ -1,113 +1,221 @@
-package src.services;
-
-import src.exceptions.InvalidAmountException;
-import src.models.Account;
-import src.models.BankAccount;
-import src.models.CheckingAccount;
-import src.models.CreditCardAccount;
-import src.models.InvestmentAccount;
-
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.time.LocalDate;
-
-/**
- * Utility class for handling CSV file operations related to accounts.
- */
-public class CSVUtility {
-    private static final String CSV_FILE = "src/accounts.csv"; // Updated file path
-
-    /**
-     * Saves accounts to a CSV file.
-     *
-     * @param accounts the list of accounts to save
-     */
-    public void saveAccounts(List<Account> accounts) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CSV_FILE))) {
-            writer.write("Account Number,Account Holder Name,Balance,Account Type,Is Active,Opening Date,Closing Date\n");
-            for (Account account : accounts) {
-                writer.write(String.format("%s,%s,%.2f,%s,%b,%s,%s\n",
-                        account.getAccountNumber(),
-                        account.getAccountHolderName(),
-                        account.getBalance(),
-                        account.getAccountType(),
-                        account.isActive(), // This will save the status of the account
-                        account.getOpeningDate(),
-                        account.getClosingDate() != null ? account.getClosingDate() : ""));
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving accounts: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Loads accounts from a CSV file.
-     *
-     * @return a list of accounts loaded from the CSV file
-     */
-    public List<Account> loadAccounts() {
-        List<Account> accounts = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(CSV_FILE))) {
-            String line;
-            reader.readLine(); // Skip header line
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(",");
-                String accountNumber = data[0];
-                String accountHolderName = data[1];
-                double balance = Double.parseDouble(data[2]);
-                String accountType = data[3];
-                boolean isActive = Boolean.parseBoolean(data[4]);
-                String openingDate = data[5];
-                String closingDate = data.length > 6 ? data[6] : null;
-
-                // Create account based on type only if account number is not null
-                if (accountNumber != null && !accountNumber.equals("null")) {
-                    Account account = createAccount(accountType, accountHolderName, balance);
-                    if (account != null) {
-                        account.setActive(isActive); // This will now work without errors
-                        account.setOpeningDate(LocalDate.parse(openingDate));
-                        if (closingDate != null && !closingDate.isEmpty()) {
-                            account.setClosingDate(LocalDate.parse(closingDate));
-                        }
-                        accounts.add(account);
-                    } else {
-                        System.err.println("Invalid account type for account: " + accountNumber);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading accounts: " + e.getMessage());
-        }
-        return accounts;
-    }
-
-    /**
-     * Creates an account based on the specified type.
-     *
-     * @param accountType the type of account to create
-     * @param accountHolderName the name of the account holder
-     * @param initialDeposit the initial deposit amount
-     * @return the created Account object, or null if the account type is invalid
-     */
-    private Account createAccount(String accountType, String accountHolderName, double initialDeposit) {
-        try {
-            switch (accountType) {
-                case "Bank Account":
-                    return new BankAccount(accountHolderName, initialDeposit);
-                case "Checking Account":
-                    return new CheckingAccount(accountHolderName, initialDeposit);
-                case "Investment Account":
-                    return new InvestmentAccount(accountHolderName, initialDeposit);
-                case "Credit Card Account":
-                    return new CreditCardAccount(accountHolderName, initialDeposit);
-                default:
-                    System.err.println("Unknown account type: " + accountType);
-                    return null; // Return null for invalid account type
-            }
-        } catch (InvalidAmountException e) {
-            System.err.println("Invalid initial deposit for account holder: " + accountHolderName);
-            return null; // Return null if account creation fails
-        }
-    }
+package src.services;
+
+import src.exceptions.InvalidAmountException;
+import src.models.Account;
+import src.models.BankAccount;
+import src.models.CheckingAccount;
+import src.models.CreditCardAccount;
+import src.models.InvestmentAccount;
+import src.models.Money;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.time.LocalDate;
+
+/**
+ * Utility class for handling CSV file operations related to accounts.
+ */
+public class CSVUtility {
+    private static final String CSV_FILE = "src/accounts.csv"; // Updated file path
+
+    /**
+     * Number of CSV fields that describe one account.
+     */
+    static final int ACCOUNT_FIELD_COUNT = 7;
+
+    private static final double RESTORED_CREDIT_LIMIT = 0.01; // Smallest valid credit limit of a restored card
+    private static final long PARALLEL_LOAD_THRESHOLD = 16L * 1024 * 1024; // Files from 16 MB are loaded in parallel
+
+    /**
+     * Saves accounts to a CSV file.
+     *
+     * @param accounts the accounts to save, read once in order
+     * @return true if the file was written, false otherwise
+     */
+    public boolean saveAccounts(Iterable<Account> accounts) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CSV_FILE))) {
+            writer.write("Account Number,Account Holder Name,Balance,Account Type,Is Active,Opening Date,Closing Date\n");
+            for (Account account : accounts) {
+                writer.write(formatAccount(account));
+                writer.write("\n");
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving accounts: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Formats an account as a CSV row, without the trailing line separator.
+     *
+     * @param account the account to format
+     * @return the CSV row for the account
+     */
+    static String formatAccount(Account account) {
+        return appendAccount(new StringBuilder(96), account, account.getAccountHolderName()).toString();
+    }
+
+    /**
+     * Appends the CSV fields of an account to a row, with the holder name already encoded by the caller.
+     *
+     * @param row the row to append to
+     * @param account the account to format
+     * @param accountHolderName the holder name as it should appear in the row
+     * @return the row
+     */
+    static StringBuilder appendAccount(StringBuilder row, Account account, String accountHolderName) {
+        row.append(account.getAccountNumber()).append(',')
+                .append(accountHolderName).append(',');
+        Money.appendTo(row, account.getBalanceCents()).append(',')
+                .append(account.getAccountType()).append(',')
+                .append(account.isActive()).append(',') // This will save the status of the account
+                .append(account.getOpeningDate()).append(',');
+        if (account.getClosingDate() != null) {
+            row.append(account.getClosingDate());
+        }
+        return row;
+    }
+
+    /**
+     * Loads accounts from a CSV file.
+     *
+     * @return a list of accounts loaded from the CSV file
+     */
+    public List<Account> loadAccounts() {
+        return loadAccounts(Paths.get(CSV_FILE));
+    }
+
+    /**
+     * Loads accounts from the given CSV file. Large files are parsed in parallel by {@link ParallelCSVLoader}.
+     *
+     * @param csvFile the CSV file to load
+     * @return a list of accounts loaded from the CSV file
+     */
+    public List<Account> loadAccounts(Path csvFile) {
+        try {
+            if (Files.size(csvFile) >= PARALLEL_LOAD_THRESHOLD) {
+                return new ParallelCSVLoader().loadAccounts(csvFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading accounts: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        return loadAccountsSerially(csvFile);
+    }
+
+    /**
+     * Loads accounts from the given CSV file line by line on the calling thread, whatever its size.
+     * Malformed rows, such as rows with an empty balance, are skipped like {@link ParallelCSVLoader} does.
+     *
+     * @param csvFile the CSV file to load
+     * @return a list of accounts loaded from the CSV file
+     */
+    public List<Account> loadAccountsSerially(Path csvFile) {
+        List<Account> accounts = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 1;
+            reader.readLine(); // Skip header line
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    Account account = parseAccount(line.split(","), 0);
+                    if (account != null) {
+                        accounts.add(account);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping malformed account row at line " + lineNumber);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading accounts: " + e.getMessage());
+        }
+        return accounts;
+    }
+
+    /**
+     * Parses an account from CSV fields, starting at the given offset.
+     *
+     * @param data the CSV fields
+     * @param offset the index of the account number field
+     * @return the parsed account, or null if the row does not describe a valid account
+     */
+    static Account parseAccount(String[] data, int offset) {
+        String accountNumber = data[offset];
+        String accountHolderName = data[offset + 1];
+        double balance = Double.parseDouble(data[offset + 2]);
+        String accountType = data[offset + 3];
+
+        // Create account based on type only if account number is not null
+        if (accountNumber == null || accountNumber.equals("null")) {
+            return null;
+        }
+
+        Account account = restoreAccount(accountType, accountNumber, accountHolderName, balance);
+        if (account == null) {
+            System.err.println("Invalid account type for account: " + accountNumber);
+            return null;
+        }
+
+        applyState(account, data, offset);
+        return account;
+    }
+
+    /**
+     * Applies the mutable state stored in CSV fields (balance, status and dates) to an existing account.
+     *
+     * @param account the account to update
+     * @param data the CSV fields
+     * @param offset the index of the account number field
+     */
+    static void applyState(Account account, String[] data, int offset) {
+        account.setBalance(Double.parseDouble(data[offset + 2]));
+        account.setActive(Boolean.parseBoolean(data[offset + 4]));
+        account.setOpeningDate(LocalDate.parse(data[offset + 5]));
+        String closingDate = data.length > offset + 6 ? data[offset + 6] : null;
+        account.setClosingDate(closingDate != null && !closingDate.isEmpty() ? LocalDate.parse(closingDate) : null);
+    }
+
+    /**
+     * Creates an account to restore persisted state into; the caller sets the balance afterwards.
+     * The account keeps its persisted number without allocating a new one. Credit limits are not
+     * persisted, so a restored credit card gets one that covers its current balance.
+     *
+     * @param accountType the type of account to create
+     * @param accountNumber the persisted account number
+     * @param accountHolderName the name of the account holder
+     * @param balance the persisted balance
+     * @return the created Account object, or null if the account type is invalid
+     */
+    static Account restoreAccount(String accountType, String accountNumber, String accountHolderName,
+                                  double balance) {
+        try {
+            switch (accountType) {
+                case "Bank Account":
+                    return new BankAccount(accountNumber, accountHolderName);
+                case "Checking Account":
+                    return new CheckingAccount(accountNumber, accountHolderName);
+                case "Investment Account":
+                    return new InvestmentAccount(accountNumber, accountHolderName);
+                case "Credit Card Account":
+                    return new CreditCardAccount(accountNumber, accountHolderName,
+                            Math.max(Math.abs(balance), RESTORED_CREDIT_LIMIT));
+                default:
+                    System.err.println("Unknown account type: " + accountType);
+                    return null; // Return null for invalid account type
+            }
+        } catch (InvalidAmountException e) {
+            System.err.println("Invalid credit limit for account: " + accountNumber);
+            return null;
+        }
+    }
 }
\ No newline at end of file
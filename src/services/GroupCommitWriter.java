@@ -0,0 +1,372 @@
+package src.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits records in groups so that many writers share one {@code fsync}.
+ * <p>
+ * Callers submit records and get a future back. A background thread takes the first waiting
+ * record, keeps collecting records until the linger time has passed or the batch is full,
+ * hands the whole batch to the {@link BatchSink} (which writes it and forces the file once)
+ * and then completes the future of every record in the batch.
+ * </p>
+ * <p>
+ * Actions can be queued between records with {@link #submitAction(Runnable)}. They run on the
+ * writer thread after the records submitted before them are written, and before any record
+ * submitted after them, so callers can mark a position in the stream without waiting for it.
+ * </p>
+ */
+public class GroupCommitWriter {
+    private static final long DEFAULT_LINGER_MICROS = 2000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final byte[] BARRIER = new byte[0]; // Marks a flush request, nothing is written for it
+
+    /**
+     * Destination of committed batches.
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        /**
+         * Writes all records of a batch and forces them to disk once.
+         *
+         * @param records the records in submission order
+         * @throws IOException if the batch cannot be written
+         */
+        void writeBatch(List<byte[]> records) throws IOException;
+    }
+
+    private final BatchSink sink;
+    private final long lingerNanos;
+    private final int maxBatchSize;
+    private final LinkedBlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final Object closeLock = new Object(); // Orders submissions against closing
+    private volatile boolean running = true; // Only cleared under closeLock
+
+    // Statistics, guarded by this
+    private long batchCount;
+    private long recordCount;
+    private int largestBatch;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * Creates a group commit writer with the default linger time and batch size.
+     *
+     * @param sink the destination of the batches
+     * @param name the name of the writer thread
+     */
+    public GroupCommitWriter(BatchSink sink, String name) {
+        this(sink, name, DEFAULT_LINGER_MICROS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a group commit writer.
+     *
+     * @param sink the destination of the batches
+     * @param name the name of the writer thread
+     * @param lingerMicros how long a batch waits for more records after its first one
+     * @param maxBatchSize the number of records after which a batch is committed without waiting
+     */
+    public GroupCommitWriter(BatchSink sink, String name, long lingerMicros, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.sink = sink;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.writerThread = new Thread(this::runWriter, name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Submits a record for the next group commit.
+     *
+     * @param record the bytes to write
+     * @return a future that completes once the record has been forced to disk
+     */
+    public CompletableFuture<Void> submit(byte[] record) {
+        PendingRecord pending = new PendingRecord(record, null);
+        synchronized (closeLock) {
+            // Once running is cleared nothing is queued, so the writer's final drain sees every record
+            if (running) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        pending.future.completeExceptionally(new IllegalStateException("Group commit writer is closed"));
+        return pending.future;
+    }
+
+    /**
+     * Submits an action that runs on the writer thread once every record submitted before it has
+     * been committed, and before any record submitted after it is written. Returns right away.
+     * Once the writer is closed nothing else is written, so the action runs on the calling thread.
+     *
+     * @param action the action to run
+     * @return a future that completes once the action has run
+     */
+    public CompletableFuture<Void> submitAction(Runnable action) {
+        PendingRecord pending = new PendingRecord(BARRIER, action);
+        synchronized (closeLock) {
+            if (running) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        runAction(pending);
+        return pending.future;
+    }
+
+    /**
+     * Waits until every record submitted so far has been committed.
+     */
+    public void flush() {
+        if (!running || Thread.currentThread() == writerThread) {
+            return;
+        }
+        try {
+            submit(BARRIER).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The failure was already reported for the records of the failed batch
+        }
+    }
+
+    /**
+     * Commits the outstanding records and stops the writer thread.
+     */
+    public void close() {
+        flush();
+        stop(); // Not interrupted: an interrupt would close the file channel mid-write
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stop() {
+        synchronized (closeLock) {
+            running = false;
+        }
+    }
+
+    /**
+     * Gets the batch size and commit latency statistics collected so far.
+     *
+     * @return the statistics
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(batchCount, recordCount, largestBatch, totalLatencyNanos, maxLatencyNanos);
+    }
+
+    /**
+     * Collects and commits batches until the writer is closed.
+     */
+    private void runWriter() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        List<byte[]> records = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch, first.submittedAt + lingerNanos);
+            } catch (InterruptedException e) {
+                stop(); // Commit whatever is left before giving up the thread
+                queue.drainTo(batch);
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch, records);
+                batch.clear();
+                records.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds waiting records to the batch until it is full or the deadline has passed.
+     *
+     * @param batch the batch being collected
+     * @param deadline the {@link System#nanoTime()} at which the batch is committed
+     * @throws InterruptedException if the writer is interrupted while waiting
+     */
+    private void collectBatch(List<PendingRecord> batch, long deadline) throws InterruptedException {
+        while (batch.size() < maxBatchSize) {
+            if (batch.get(batch.size() - 1).record == BARRIER) {
+                return; // Someone is waiting for a flush, commit right away
+            }
+            long wait = deadline - System.nanoTime();
+            PendingRecord next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes one batch through the sink and completes its futures. Actions in the batch split it:
+     * the records before an action are written before it runs.
+     *
+     * @param batch the batch to commit
+     * @param records scratch list for the record bytes
+     */
+    private void commit(List<PendingRecord> batch, List<byte[]> records) {
+        int segmentStart = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRecord pending = batch.get(i);
+            if (pending.action != null) {
+                commitSegment(batch.subList(segmentStart, i), records);
+                runAction(pending);
+                segmentStart = i + 1;
+            }
+        }
+        commitSegment(batch.subList(segmentStart, batch.size()), records);
+    }
+
+    /**
+     * Runs a submitted action and completes its future.
+     *
+     * @param pending the action
+     */
+    private void runAction(PendingRecord pending) {
+        try {
+            pending.action.run();
+            pending.future.complete(null);
+        } catch (RuntimeException e) {
+            System.err.println("Error running group commit action: " + e.getMessage());
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Writes records without actions through the sink and completes their futures.
+     *
+     * @param segment the records to commit
+     * @param records scratch list for the record bytes
+     */
+    private void commitSegment(List<PendingRecord> segment, List<byte[]> records) {
+        records.clear();
+        for (PendingRecord pending : segment) {
+            if (pending.record != BARRIER) {
+                records.add(pending.record);
+            }
+        }
+
+        IOException failure = null;
+        if (!records.isEmpty()) {
+            try {
+                sink.writeBatch(records);
+            } catch (IOException e) {
+                System.err.println("Error committing " + records.size() + " records: " + e.getMessage());
+                failure = e;
+            }
+        }
+
+        long now = System.nanoTime();
+        long batchLatency = 0;
+        long batchMaxLatency = 0;
+        for (PendingRecord pending : segment) {
+            if (failure == null) {
+                pending.future.complete(null);
+            } else {
+                pending.future.completeExceptionally(failure);
+            }
+            if (pending.record != BARRIER) {
+                long latency = now - pending.submittedAt;
+                batchLatency += latency;
+                batchMaxLatency = Math.max(batchMaxLatency, latency);
+            }
+        }
+
+        if (!records.isEmpty()) {
+            synchronized (this) {
+                batchCount++;
+                recordCount += records.size();
+                largestBatch = Math.max(largestBatch, records.size());
+                totalLatencyNanos += batchLatency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, batchMaxLatency);
+            }
+        }
+    }
+
+    /**
+     * A submitted record waiting for its commit.
+     */
+    private static final class PendingRecord {
+        private final byte[] record;
+        private final Runnable action; // Run in place of writing, for submitted actions
+        private final long submittedAt = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PendingRecord(byte[] record, Runnable action) {
+            this.record = record;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Batch size and commit latency statistics of a group commit writer.
+     */
+    public static final class Statistics {
+        private final long batchCount;
+        private final long recordCount;
+        private final int largestBatch;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+
+        private Statistics(long batchCount, long recordCount, int largestBatch,
+                           long totalLatencyNanos, long maxLatencyNanos) {
+            this.batchCount = batchCount;
+            this.recordCount = recordCount;
+            this.largestBatch = largestBatch;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        public long getBatchCount() {
+            return batchCount;
+        }
+
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        public int getLargestBatch() {
+            return largestBatch;
+        }
+
+        public double getAverageBatchSize() {
+            return batchCount == 0 ? 0 : (double) recordCount / batchCount;
+        }
+
+        public double getAverageLatencyMillis() {
+            return recordCount == 0 ? 0 : totalLatencyNanos / 1e6 / recordCount;
+        }
+
+        public double getMaxLatencyMillis() {
+            return maxLatencyNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commits, %d records, average batch %.1f (largest %d), "
+                            + "average latency %.2f ms (max %.2f ms)",
+                    batchCount, recordCount, getAverageBatchSize(), largestBatch,
+                    getAverageLatencyMillis(), getMaxLatencyMillis());
+        }
+    }
+}
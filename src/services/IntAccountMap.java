@@ -0,0 +1,258 @@
+package src.services;
+
+import src.models.Account;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hash map from int account numbers to accounts.
+ * <p>
+ * Keys live in a plain {@code int[]} next to an {@code Account[]} of the same length and
+ * collisions are resolved by linear probing, so a lookup is a hash, a few array reads and
+ * {@code int} comparisons: no boxing, no {@code String} keys and no entry objects. Removal
+ * shifts the following entries back instead of leaving tombstones.
+ * </p>
+ * <p>
+ * The map is not synchronized; callers guard it the same way they guard the account list.
+ * </p>
+ */
+public class IntAccountMap {
+    private static final int EMPTY = 0; // Key marking a free slot; key 0 itself is kept outside the table
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Account[] values;
+    private int mask;
+    private int size; // Entries in the table, not counting key 0
+    private int resizeThreshold;
+    private Account zeroKeyValue; // Value of key 0, null if absent
+
+    /**
+     * Creates an empty map.
+     */
+    public IntAccountMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map that holds the given number of accounts without growing.
+     *
+     * @param expectedSize the expected number of accounts
+     */
+    public IntAccountMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Gets the account with the given number.
+     *
+     * @param key the account number
+     * @return the account, or null if there is none
+     */
+    public Account get(int key) {
+        if (key == EMPTY) {
+            return zeroKeyValue;
+        }
+        int[] keys = this.keys;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an account with the given number is stored.
+     *
+     * @param key the account number
+     * @return true if the map holds the account number
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores an account, replacing the account stored under the same number.
+     *
+     * @param key the account number
+     * @param account the account, not null
+     * @return the account previously stored under the number, or null
+     */
+    public Account put(int key, Account account) {
+        return put(key, account, true);
+    }
+
+    /**
+     * Stores an account unless the number is already taken.
+     *
+     * @param key the account number
+     * @param account the account, not null
+     * @return the account already stored under the number, or null if the account was stored
+     */
+    public Account putIfAbsent(int key, Account account) {
+        return put(key, account, false);
+    }
+
+    /**
+     * Removes the account with the given number.
+     *
+     * @param key the account number
+     * @return the removed account, or null if there was none
+     */
+    public Account remove(int key) {
+        if (key == EMPTY) {
+            Account previous = zeroKeyValue;
+            zeroKeyValue = null;
+            return previous;
+        }
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == EMPTY) {
+                return null;
+            }
+            if (current == key) {
+                Account previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stored accounts.
+     *
+     * @return the number of accounts
+     */
+    public int size() {
+        return size + (zeroKeyValue != null ? 1 : 0);
+    }
+
+    /**
+     * Passes every stored account to the action, in table order.
+     *
+     * @param action the action to run for each account
+     */
+    public void forEach(Consumer<Account> action) {
+        if (zeroKeyValue != null) {
+            action.accept(zeroKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes all accounts, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+        zeroKeyValue = null;
+    }
+
+    private Account put(int key, Account account, boolean replace) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account cannot be null");
+        }
+        if (key == EMPTY) {
+            Account previous = zeroKeyValue;
+            if (previous == null || replace) {
+                zeroKeyValue = account;
+            }
+            return previous;
+        }
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == key) {
+                Account previous = values[slot];
+                if (replace) {
+                    values[slot] = account;
+                }
+                return previous;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = account;
+                if (++size > resizeThreshold) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Closes the gap left by a removed entry by moving back the entries of its probe run.
+     *
+     * @param gap the slot of the removed entry
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // Move the entry only if the gap lies on its probe path from its home slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Account[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Account[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR) + 1;
+        int capacity = Integer.highestOneBit((int) Math.min(needed, 1 << 30));
+        return Math.max(DEFAULT_CAPACITY, capacity < needed ? capacity << 1 : capacity);
+    }
+
+    /**
+     * Spreads the key bits; account numbers of one type share their high digits.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
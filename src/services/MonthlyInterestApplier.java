@@ -2,8 +2,10 @@ package src.services;
 
 import src.exceptions.InvalidAmountException;
 import src.models.InvestmentAccount;
+import src.models.TimeSource;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -22,12 +24,18 @@ public class MonthlyInterestApplier {
     }
 
     /**
-     * Applies interest to all eligible investment accounts.
+     * Applies interest to all eligible investment and credit card accounts.
+     * The whole run is stamped with the time it started, so the clock is read once instead of
+     * once per account.
      */
+    @SuppressWarnings("try") // The pin is only held for the scope of the try block
     public void applyMonthlyInterest() {
-        accountManager.applyMonthlyInterestToAllAccounts();
-        accountManager.applyMonthlyInterestToCreditCards();
-        System.out.println("Applied monthly interest on " + LocalDate.now());
+        LocalDateTime runTime = TimeSource.current().now();
+        try (TimeSource.Pin ignored = TimeSource.pinCurrentThread(runTime)) {
+            accountManager.applyMonthlyInterestToAllAccounts();
+            accountManager.applyMonthlyInterestToCreditCards();
+        }
+        System.out.println("Applied monthly interest on " + runTime.toLocalDate());
     }
 
     /**
@@ -59,7 +67,7 @@ public class MonthlyInterestApplier {
      * @return the delay in milliseconds
      */
     private long getTimeUntilNextMonthFirstDay() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = TimeSource.current().today();
         LocalDate firstDayOfNextMonth = today.plusMonths(1).withDayOfMonth(1);
         return java.time.Duration.between(
                 today.atStartOfDay(), firstDayOfNextMonth.atStartOfDay()).toMillis();
@@ -0,0 +1,355 @@
+package src.services;
+
+import src.models.Account;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads large account CSV files on all cores.
+ * <p>
+ * The file is cut into byte ranges that start and end on line boundaries. Each range is
+ * memory-mapped and parsed by its own fork-join task, reading the fields straight from the
+ * mapped bytes instead of building a line {@code String} and splitting it. The per-range
+ * results are concatenated in file order.
+ * </p>
+ */
+public class ParallelCSVLoader {
+    private static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024; // Smaller ranges are not worth a task
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024; // Keeps every mapping well below 2 GB
+    private static final int FIELD_COUNT = CSVUtility.ACCOUNT_FIELD_COUNT;
+
+    private static final byte[] BANK_ACCOUNT = bytes("Bank Account");
+    private static final byte[] INVESTMENT_ACCOUNT = bytes("Investment Account");
+    private static final byte[] CHECKING_ACCOUNT = bytes("Checking Account");
+    private static final byte[] CREDIT_CARD_ACCOUNT = bytes("Credit Card Account");
+    private static final byte[] TRUE = bytes("true");
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a loader that runs on the common fork-join pool.
+     */
+    public ParallelCSVLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader that runs on the given fork-join pool.
+     *
+     * @param pool the pool that parses the ranges
+     */
+    public ParallelCSVLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Loads accounts from a CSV file with a header line.
+     *
+     * @param csvFile the CSV file to load
+     * @return the accounts in file order
+     */
+    public List<Account> loadAccounts(Path csvFile) {
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            long[] boundaries = splitIntoRanges(channel);
+            return pool.invoke(new RangeTask(channel, boundaries, 0, boundaries.length - 1));
+        } catch (IOException e) {
+            System.err.println("Error loading accounts: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Computes range boundaries aligned to the start of a line. The first range starts after the header.
+     *
+     * @param channel the CSV file
+     * @return ascending boundaries, where range i is [boundaries[i], boundaries[i + 1])
+     * @throws IOException if the file cannot be read
+     */
+    private long[] splitIntoRanges(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long start = nextLineStart(channel, 0); // Skip header line
+        int parallelism = pool.getParallelism();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, (size - start) / (parallelism * 4L) + 1));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        long position = start;
+        while (position < size) {
+            long next = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize);
+            boundaries.add(next);
+            position = next;
+        }
+        if (boundaries.size() == 1) {
+            boundaries.add(size); // Header only
+        }
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the start of the first line beginning after the given position.
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses a run of ranges, splitting it in halves until a single range is left.
+     */
+    private static final class RangeTask extends RecursiveTask<List<Account>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        RangeTask(FileChannel channel, long[] boundaries, int from, int to) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Account> compute() {
+            if (to - from <= 1) {
+                return parseRange(channel, boundaries[from], boundaries[to]);
+            }
+
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(channel, boundaries, from, middle);
+            RangeTask right = new RangeTask(channel, boundaries, middle, to);
+            left.fork();
+            List<Account> rightAccounts = right.compute();
+            List<Account> accounts = left.join();
+            accounts.addAll(rightAccounts);
+            return accounts;
+        }
+    }
+
+    /**
+     * Parses all lines of one range.
+     */
+    private static List<Account> parseRange(FileChannel channel, long start, long end) {
+        List<Account> accounts = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, (end - start) / 64));
+        if (end <= start) {
+            return accounts;
+        }
+
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            System.err.println("Error mapping account file range at " + start + ": " + e.getMessage());
+            return accounts;
+        }
+
+        int[] fieldStarts = new int[FIELD_COUNT + 1];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (contentEnd > lineStart) {
+                try {
+                    Account account = parseLine(buffer, lineStart, contentEnd, fieldStarts);
+                    if (account != null) {
+                        accounts.add(account);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping malformed account row at byte " + (start + lineStart));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return accounts;
+    }
+
+    /**
+     * Parses one CSV line. {@code fieldStarts[i]} receives the start of field i and
+     * {@code fieldStarts[i + 1] - 1} is its end.
+     */
+    private static Account parseLine(ByteBuffer buffer, int start, int end, int[] fieldStarts) {
+        int field = 0;
+        fieldStarts[0] = start;
+        for (int i = start; i < end && field < FIELD_COUNT - 1; i++) {
+            if (buffer.get(i) == ',') {
+                fieldStarts[++field] = i + 1;
+            }
+        }
+        if (field < FIELD_COUNT - 2) {
+            throw new IllegalArgumentException("Missing fields");
+        }
+        if (field == FIELD_COUNT - 2) {
+            fieldStarts[++field] = end + 1; // No closing date column
+        }
+        fieldStarts[FIELD_COUNT] = end + 1;
+
+        String accountType = accountType(buffer, fieldStarts[3], fieldStarts[4] - 1);
+        if (accountType == null) {
+            System.err.println("Invalid account type for account: " + ascii(buffer, fieldStarts[0], fieldStarts[1] - 1));
+            return null;
+        }
+
+        String accountNumber = ascii(buffer, fieldStarts[0], fieldStarts[1] - 1);
+        if (accountNumber.equals("null")) {
+            return null;
+        }
+        String accountHolderName = utf8(buffer, fieldStarts[1], fieldStarts[2] - 1);
+        double balance = parseAmount(buffer, fieldStarts[2], fieldStarts[3] - 1);
+
+        Account account = CSVUtility.restoreAccount(accountType, accountNumber, accountHolderName, balance);
+        if (account == null) {
+            return null;
+        }
+
+        account.setBalance(balance);
+        account.setActive(matches(buffer, fieldStarts[4], fieldStarts[5] - 1, TRUE));
+        account.setOpeningDate(parseDate(buffer, fieldStarts[5], fieldStarts[6] - 1));
+        int closingStart = fieldStarts[6];
+        int closingEnd = Math.min(fieldStarts[7] - 1, end);
+        account.setClosingDate(closingEnd > closingStart ? parseDate(buffer, closingStart, closingEnd) : null);
+        return account;
+    }
+
+    /**
+     * Parses a plain decimal amount such as {@code -1234.50} without creating a string.
+     * Other notations fall back to {@link Double#parseDouble(String)}.
+     */
+    private static double parseAmount(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long digits = 0; // All digits of the amount, the decimal point removed
+        long scale = 1;
+        int digitCount = 0;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9' && digitCount < 15) {
+                digits = digits * 10 + (b - '0');
+                digitCount++;
+                if (inFraction) {
+                    scale *= 10;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Double.parseDouble(ascii(buffer, start, end));
+            }
+        }
+        if (digitCount == 0) {
+            return Double.parseDouble(ascii(buffer, start, end)); // Rejects an empty amount like the serial path
+        }
+
+        // Both operands are exact, so the single division rounds the same way parseDouble does
+        double value = digits / (double) scale;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses an ISO {@code yyyy-MM-dd} date.
+     */
+    private static LocalDate parseDate(ByteBuffer buffer, int start, int end) {
+        if (end - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return LocalDate.parse(ascii(buffer, start, end));
+        }
+        return LocalDate.of(digits(buffer, start, start + 4), digits(buffer, start + 5, start + 7),
+                digits(buffer, start + 8, start + 10));
+    }
+
+    private static int digits(ByteBuffer buffer, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid date");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Maps the account type field to the shared type name without decoding it.
+     */
+    private static String accountType(ByteBuffer buffer, int start, int end) {
+        if (matches(buffer, start, end, BANK_ACCOUNT)) {
+            return "Bank Account";
+        } else if (matches(buffer, start, end, INVESTMENT_ACCOUNT)) {
+            return "Investment Account";
+        } else if (matches(buffer, start, end, CHECKING_ACCOUNT)) {
+            return "Checking Account";
+        } else if (matches(buffer, start, end, CREDIT_CARD_ACCOUNT)) {
+            return "Credit Card Account";
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String utf8(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,125 @@
+package src.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs saves on a background thread, away from the Swing event dispatch thread.
+ * <p>
+ * Save requests that arrive while a save is already scheduled join that save, so a burst of
+ * changes is written once. Every request returns a future that completes when the save
+ * covering it has been written; if the save fails, the future completes exceptionally. {@link #flush()}
+ * waits for all requested saves.
+ * </p>
+ */
+public class PersistenceService {
+    private static final long DEFAULT_COALESCE_DELAY_MS = 250; // Window in which requests are merged
+
+    private final BooleanSupplier saveTask; // Returns false if the save failed
+    private final long coalesceDelayMs;
+    private final ScheduledExecutorService executor;
+    private CompletableFuture<Void> pendingSave; // Save that new requests join, null if none is scheduled
+
+    /**
+     * Creates a persistence service with the default coalescing delay.
+     *
+     * @param saveTask the save to run in the background, returning false if it failed
+     */
+    public PersistenceService(BooleanSupplier saveTask) {
+        this(saveTask, DEFAULT_COALESCE_DELAY_MS);
+    }
+
+    /**
+     * Creates a persistence service.
+     *
+     * @param saveTask the save to run in the background, returning false if it failed
+     * @param coalesceDelayMs how long a save waits for further requests before it runs
+     */
+    public PersistenceService(BooleanSupplier saveTask, long coalesceDelayMs) {
+        this.saveTask = saveTask;
+        this.coalesceDelayMs = coalesceDelayMs;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Requests a save. Returns immediately; requests made before the save starts are merged into it.
+     *
+     * @return a future that completes once the save covering this request has been written,
+     *         or exceptionally if that save failed
+     */
+    public synchronized CompletableFuture<Void> requestSave() {
+        if (pendingSave == null) {
+            pendingSave = new CompletableFuture<>();
+            executor.schedule(this::runPendingSave, coalesceDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return pendingSave;
+    }
+
+    /**
+     * Saves now and waits until everything requested so far has been written.
+     */
+    public void flush() {
+        CompletableFuture<Void> save;
+        synchronized (this) {
+            save = pendingSave != null ? pendingSave : (pendingSave = new CompletableFuture<>());
+        }
+        if (!executor.isShutdown()) {
+            executor.execute(this::runPendingSave); // Run without waiting for the coalescing delay
+        } else {
+            runPendingSave();
+        }
+
+        try {
+            save.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error saving accounts: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Flushes outstanding saves and stops the background thread.
+     */
+    public void shutdown() {
+        flush();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the pending save, if any, and completes its future.
+     */
+    private void runPendingSave() {
+        CompletableFuture<Void> save;
+        synchronized (this) {
+            save = pendingSave;
+            pendingSave = null;
+        }
+        if (save == null) {
+            return; // Already run by a flush
+        }
+
+        try {
+            if (saveTask.getAsBoolean()) {
+                save.complete(null);
+            } else {
+                save.completeExceptionally(new IllegalStateException("Accounts could not be saved"));
+            }
+        } catch (RuntimeException e) {
+            save.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package src.services;
+
+import java.util.Arrays;
+
+/**
+ * Prefix tree from string keys to int ids, used for as-you-type completion.
+ * <p>
+ * Every node keeps its children in a sorted {@code char[]} with a parallel child array, so
+ * finding the node of a prefix costs one binary search per character. Completions are collected
+ * by walking the subtree below that node in key order and stop as soon as enough ids are found,
+ * so the cost depends on the prefix length and the number of completions asked for, not on
+ * the number of keys.
+ * </p>
+ */
+public class PrefixTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private Node root = new Node();
+
+    /**
+     * Adds a key. A key can hold several ids and an id can be added under several keys.
+     *
+     * @param key the key
+     * @param id the id stored under the key
+     */
+    public void add(String key, int id) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        node.addId(id);
+    }
+
+    /**
+     * Finds the ids of the keys starting with a prefix, in key order. An id stored under several
+     * matching keys is returned once.
+     *
+     * @param prefix the prefix to complete
+     * @param limit the maximum number of ids to return
+     * @return the ids of the first keys with the prefix
+     */
+    public int[] complete(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null || limit <= 0) {
+            return NO_IDS;
+        }
+
+        int[] result = new int[limit];
+        int count = 0;
+        Node[] stack = new Node[16];
+        int depth = 0;
+        stack[depth++] = node;
+        while (depth > 0 && count < limit) {
+            Node current = stack[--depth];
+            for (int i = 0; i < current.idCount && count < limit; i++) {
+                if (!contains(result, count, current.ids[i])) {
+                    result[count++] = current.ids[i];
+                }
+            }
+
+            if (depth + current.childCount > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, depth + current.childCount));
+            }
+            for (int i = current.childCount - 1; i >= 0; i--) {
+                stack[depth++] = current.children[i]; // Pushed in reverse so the smallest label is visited first
+            }
+        }
+        return count == limit ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Removes all keys.
+     */
+    public void clear() {
+        root = new Node();
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A trie node with its children sorted by label.
+     */
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private int[] ids = NO_IDS;
+        private int idCount;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, insertAt, labels, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node child = new Node();
+            labels[insertAt] = label;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+
+        void addId(int id) {
+            if (idCount > 0 && ids[idCount - 1] == id) {
+                return;
+            }
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(1, idCount * 2));
+            }
+            ids[idCount++] = id;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package src.services;
 import src.exceptions.InvalidAccountException;
 import src.exceptions.InvalidAmountException;
 import src.models.Account;
+import src.models.AccountState;
 import src.models.Transaction;
 
 import java.io.BufferedWriter;
@@ -15,6 +16,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Generates reports about accounts and transactions.
@@ -64,7 +66,8 @@ public class ReportGenerator {
      * @throws IOException if the report cannot be written
      */
     public String generateActiveAccountsReport() throws IOException {
-        List<Account> activeAccounts = accountManager.getActiveAccounts();
+        AccountSnapshot snapshot = accountManager.createSnapshot(); // Consistent view while clerks keep working
+        int activeAccountCount = snapshot.count(AccountState::isActive);
         String filename = ACTIVE_REPORTS_DIR + "/active_accounts_report_" + getCurrentTimestamp() + ".txt";
 
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
@@ -72,14 +75,16 @@ public class ReportGenerator {
             writer.write("Generated on: " + LocalDateTime.now().format(DATE_TIME_FORMATTER) + "\n");
             writer.write("===========================================\n\n");
 
-            writer.write(String.format("Total Active Accounts: %d\n\n", activeAccounts.size()));
+            writer.write(String.format("Total Active Accounts: %d\n\n", activeAccountCount));
 
-            if (activeAccounts.isEmpty()) {
+            if (activeAccountCount == 0) {
                 writer.write("No active accounts found.\n");
             } else {
-                for (Account account : activeAccounts) {
-                    writer.write(account.getAccountDetails()); // This will include account number and holder name
-                    writer.write("\n-----------------------------------------\n\n");
+                for (AccountState account : snapshot) {
+                    if (account.isActive()) {
+                        writer.write(account.getAccountDetails()); // This will include account number and holder name
+                        writer.write("\n-----------------------------------------\n\n");
+                    }
                 }
             }
         }
@@ -94,7 +99,8 @@ public class ReportGenerator {
      * @throws IOException if the report cannot be written
      */
     public String generateClosedAccountsReport() throws IOException {
-        List<Account> closedAccounts = accountManager.getClosedAccounts();
+        AccountSnapshot snapshot = accountManager.createSnapshot(); // Consistent view while clerks keep working
+        int closedAccountCount = snapshot.count(account -> !account.isActive());
         String filename = CLOSED_REPORTS_DIR + "/closed_accounts_report_" + getCurrentTimestamp() + ".txt";
 
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
@@ -102,14 +108,16 @@ public class ReportGenerator {
             writer.write("Generated on: " + LocalDateTime.now().format(DATE_TIME_FORMATTER) + "\n");
             writer.write("===========================================\n\n");
 
-            writer.write(String.format("Total Closed Accounts: %d\n\n", closedAccounts.size()));
+            writer.write(String.format("Total Closed Accounts: %d\n\n", closedAccountCount));
 
-            if (closedAccounts.isEmpty()) {
+            if (closedAccountCount == 0) {
                 writer.write("No closed accounts found.\n");
             } else {
-                for (Account account : closedAccounts) {
-                    writer.write(account.getAccountDetails());
-                    writer.write("\n-----------------------------------------\n\n");
+                for (AccountState account : snapshot) {
+                    if (!account.isActive()) {
+                        writer.write(account.getAccountDetails());
+                        writer.write("\n-----------------------------------------\n\n");
+                    }
                 }
             }
         }
@@ -139,8 +147,18 @@ public class ReportGenerator {
             writer.write(account.getAccountDetails());
             writer.write("\n-----------------------------------------\n\n");
 
+            writer.write("Transactions by Type:\n");
+            Map<String, Integer> counts = transactionHistory.getTransactionCountsByType(accountNumber);
+            if (counts.isEmpty()) {
+                writer.write("No transactions found\n");
+            }
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                writer.write(count.getKey() + ": " + count.getValue() + "\n");
+            }
+            writer.write("\n-----------------------------------------\n\n");
+
             writer.write("Transaction History:\n");
-            writer.write(account.getTransactionHistory());
+            writer.write(transactionHistory.getTransactionHistory(accountNumber));
         }
 
         return filename;
@@ -0,0 +1,459 @@
+package src.services;
+
+import src.models.Account;
+import src.models.Money;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for the binary account snapshot.
+ * <p>
+ * The snapshot is a fixed-width file: a 128 byte header followed by one 128 byte record per
+ * account. Loading maps the file with {@link MappedByteBuffer}s of at most 1 GB of records each
+ * and reads every field at a fixed position, so there is no line splitting or text parsing on
+ * startup. Because every
+ * account keeps its record slot, changed accounts can be rewritten in place without touching
+ * the rest of the file. {@code accounts.csv} stays available as an import and export format
+ * through {@link CSVUtility}.
+ * </p>
+ * <p>
+ * Balances are stored as whole centavos in a {@code long}, the same as {@link Account} keeps
+ * them, so a save and load never rounds a balance. Files of version 2 and older stored the
+ * balance as a {@code double} amount, exact to the cent only up to about 2^53 centavos; they are
+ * still read and are rewritten in the current format on the next save.
+ * </p>
+ * <p>
+ * Holder names longer than the {@value #MAX_NAME_BYTES} bytes a record has room for are kept in
+ * full in an overflow file next to the snapshot, {@code accounts.snapshot.names}; their records
+ * hold the start of the name and a flag. Entries are appended as accounts change and the file
+ * is rewritten with every full save, so the last entry of an account wins.
+ * </p>
+ */
+public class SnapshotUtility {
+    private static final String SNAPSHOT_FILE = "src/accounts.snapshot";
+    private static final int MAGIC = 0x41434354; // "ACCT"
+    private static final int VERSION = 3;
+    private static final int VERSION_2 = 2; // Balance stored as a double amount
+    private static final int VERSION_1 = 1; // 16 byte header, records not aligned to their size, double balance
+    private static final int VERSION_1_HEADER_SIZE = 16;
+
+    static final int RECORD_SIZE = 128;
+    static final int HEADER_SIZE = RECORD_SIZE; // Keeps records from straddling disk pages
+    private static final int COUNT = 8; // Header position of the record count
+    private static final int WINDOW_RECORDS = (1 << 30) / RECORD_SIZE; // Records mapped at once, 1 GB
+
+    // Field positions inside a record
+    private static final int ACCOUNT_NUMBER = 0;      // int
+    private static final int TYPE = 4;                // byte
+    private static final int ACTIVE = 5;              // byte, flags
+    private static final int NAME_LENGTH = 6;         // short
+    private static final int BALANCE = 8;             // long, centavos
+    private static final int OPENING_DATE = 16;       // int, epoch day
+    private static final int CLOSING_DATE = 20;       // int, epoch day or NO_DATE
+    private static final int NAME = 24;               // UTF-8 bytes
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - NAME;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    // Flags in the ACTIVE byte
+    private static final int FLAG_ACTIVE = 0x01;
+    private static final int FLAG_NAME_OVERFLOW = 0x02; // The full name is in the overflow file
+
+    private static final String[] ACCOUNT_TYPES = {
+            "Bank Account", "Investment Account", "Checking Account", "Credit Card Account"
+    };
+
+    private final Path snapshotPath;
+    private final Path namesPath; // Overflow file of the names that do not fit their record
+    private final Map<String, Integer> slots = new HashMap<>(); // Record slot of every saved account
+    private int recordCount;
+    private boolean slotsValid; // False until the file has been read or written in the current format
+
+    /**
+     * Creates a snapshot utility for the default snapshot file.
+     */
+    public SnapshotUtility() {
+        this(Paths.get(SNAPSHOT_FILE));
+    }
+
+    /**
+     * Creates a snapshot utility for the given snapshot file.
+     *
+     * @param snapshotPath the path of the snapshot file
+     */
+    public SnapshotUtility(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        this.namesPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".names");
+    }
+
+    /**
+     * Checks whether a snapshot has been written.
+     *
+     * @return true if the snapshot file exists
+     */
+    public boolean exists() {
+        return Files.exists(snapshotPath);
+    }
+
+    /**
+     * Saves accounts to the snapshot file. The file is written next to the old one and moved
+     * into place, so a crash during the save leaves the previous snapshot intact.
+     *
+     * @param accounts the accounts to save
+     * @return true if the snapshot was written, false otherwise
+     */
+    public synchronized boolean saveAccounts(List<Account> accounts) {
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        List<Account> longNames = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 512);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(accounts.size()).putInt(RECORD_SIZE);
+            buffer.position(HEADER_SIZE);
+
+            for (Account account : accounts) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(channel, buffer);
+                }
+                if (writeRecord(buffer, buffer.position(), account)) {
+                    longNames.add(account);
+                }
+                buffer.position(buffer.position() + RECORD_SIZE);
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error saving account snapshot: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Path tempNamesPath = namesPath.resolveSibling(namesPath.getFileName() + ".tmp");
+            Files.deleteIfExists(tempNamesPath);
+            if (!longNames.isEmpty()) {
+                appendNames(tempNamesPath, longNames);
+            }
+            if (Files.exists(tempNamesPath)) {
+                Files.move(tempNamesPath, namesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving long account holder names: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            slots.clear();
+            for (int i = 0; i < accounts.size(); i++) {
+                slots.put(accounts.get(i).getAccountNumber(), i);
+            }
+            recordCount = accounts.size();
+            slotsValid = true;
+            if (longNames.isEmpty()) {
+                Files.deleteIfExists(namesPath); // Only names of the replaced snapshot were left in it
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing account snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads accounts from the snapshot file.
+     *
+     * @return a list of accounts loaded from the snapshot
+     */
+    public synchronized List<Account> loadAccounts() {
+        ArrayList<Account> accounts = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(fileSize, VERSION_1_HEADER_SIZE));
+            int version = header.limit() >= VERSION_1_HEADER_SIZE ? header.getInt(4) : -1;
+            if (header.limit() < VERSION_1_HEADER_SIZE || header.getInt(0) != MAGIC
+                    || (version != VERSION && version != VERSION_2 && version != VERSION_1)
+                    || header.getInt(12) != RECORD_SIZE) {
+                System.err.println("Unsupported account snapshot format: " + snapshotPath);
+                return accounts;
+            }
+
+            Map<Integer, String> longNames = loadNames();
+            int headerSize = version == VERSION_1 ? VERSION_1_HEADER_SIZE : HEADER_SIZE;
+            boolean centsBalance = version == VERSION;
+            int count = (int) Math.max(0, Math.min(header.getInt(COUNT), (fileSize - headerSize) / RECORD_SIZE));
+            byte[] nameBytes = new byte[MAX_NAME_BYTES];
+            accounts.ensureCapacity(count);
+            slots.clear();
+            for (int first = 0; first < count; first += WINDOW_RECORDS) {
+                int records = Math.min(WINDOW_RECORDS, count - first);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        headerSize + (long) first * RECORD_SIZE, (long) records * RECORD_SIZE);
+                for (int i = 0; i < records; i++) {
+                    Account account = readRecord(window, i * RECORD_SIZE, first + i, centsBalance, nameBytes,
+                            longNames);
+                    if (account != null) {
+                        accounts.add(account);
+                        slots.put(account.getAccountNumber(), first + i);
+                    }
+                }
+            }
+            recordCount = count;
+            slotsValid = version == VERSION; // Older files are rewritten in full on the next save
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error loading account snapshot: " + e.getMessage());
+        }
+        return accounts;
+    }
+
+    /**
+     * Rewrites the records of the given accounts in place. Accounts without a slot yet are
+     * appended after the last record. Only the changed records are written, so the cost
+     * depends on the number of changes instead of the number of accounts.
+     *
+     * @param changedAccounts the accounts whose records are out of date
+     * @return true if the records were written, false if a full save is needed instead
+     */
+    public synchronized boolean saveChanges(Collection<Account> changedAccounts) {
+        if (!slotsValid || !exists()) {
+            return false;
+        }
+
+        List<Account> longNames = new ArrayList<>();
+        for (Account account : changedAccounts) {
+            if (account.getAccountHolderName().getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+                longNames.add(account);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+            if (!longNames.isEmpty()) {
+                appendNames(namesPath, longNames); // Before the records that refer to them
+            }
+            ByteBuffer record = ByteBuffer.allocateDirect(RECORD_SIZE);
+            int count = recordCount;
+            for (Account account : changedAccounts) {
+                Integer slot = slots.get(account.getAccountNumber());
+                if (slot == null) {
+                    slot = count++;
+                    slots.put(account.getAccountNumber(), slot);
+                }
+
+                record.clear();
+                writeRecord(record, 0, account);
+                writeFully(channel, record, HEADER_SIZE + (long) slot * RECORD_SIZE);
+            }
+
+            if (count != recordCount) {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(0, count);
+                writeFully(channel, header, COUNT);
+                recordCount = count;
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error updating account snapshot: " + e.getMessage());
+            slotsValid = false; // Do not trust the slots until the next full save
+            return false;
+        }
+    }
+
+    /**
+     * Writes one account record at the given buffer position.
+     *
+     * @param buffer the target buffer
+     * @param position the position of the record
+     * @param account the account to write
+     * @return true if the holder name does not fit the record and belongs in the overflow file
+     */
+    static boolean writeRecord(ByteBuffer buffer, int position, Account account) {
+        byte[] fullName = account.getAccountHolderName().getBytes(StandardCharsets.UTF_8);
+        boolean overflow = fullName.length > MAX_NAME_BYTES;
+        byte[] name = overflow ? namePrefix(fullName) : fullName;
+
+        buffer.putInt(position + ACCOUNT_NUMBER, Integer.parseInt(account.getAccountNumber()));
+        buffer.put(position + TYPE, typeCode(account.getAccountType()));
+        buffer.put(position + ACTIVE, (byte) ((account.isActive() ? FLAG_ACTIVE : 0) | (overflow ? FLAG_NAME_OVERFLOW : 0)));
+        buffer.putShort(position + NAME_LENGTH, (short) name.length);
+        buffer.putLong(position + BALANCE, account.getBalanceCents());
+        buffer.putInt(position + OPENING_DATE, (int) account.getOpeningDate().toEpochDay());
+        buffer.putInt(position + CLOSING_DATE,
+                account.getClosingDate() != null ? (int) account.getClosingDate().toEpochDay() : NO_DATE);
+        for (int i = 0; i < MAX_NAME_BYTES; i++) {
+            buffer.put(position + NAME + i, i < name.length ? name[i] : 0);
+        }
+        return overflow;
+    }
+
+    /**
+     * Reads one account record at the given buffer position.
+     *
+     * @param buffer the source buffer
+     * @param position the position of the record
+     * @param slot the slot number of the record
+     * @param centsBalance whether the balance is stored in centavos instead of as a double amount
+     * @param nameBytes scratch space for the holder name
+     * @param longNames the names from the overflow file by account number
+     * @return the account, or null if the record is invalid
+     */
+    private static Account readRecord(ByteBuffer buffer, int position, int slot, boolean centsBalance,
+                                      byte[] nameBytes, Map<Integer, String> longNames) {
+        int typeCode = buffer.get(position + TYPE);
+        if (typeCode < 0 || typeCode >= ACCOUNT_TYPES.length) {
+            System.err.println("Invalid account type in snapshot record " + slot);
+            return null;
+        }
+
+        int nameLength = buffer.getShort(position + NAME_LENGTH);
+        if (nameLength < 0 || nameLength > MAX_NAME_BYTES) {
+            System.err.println("Invalid name length in snapshot record " + slot + ": " + nameLength);
+            return null;
+        }
+        int accountNumber = buffer.getInt(position + ACCOUNT_NUMBER);
+        int flags = buffer.get(position + ACTIVE);
+        buffer.get(position + NAME, nameBytes, 0, nameLength);
+        String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+        if ((flags & FLAG_NAME_OVERFLOW) != 0) {
+            String longName = longNames.get(accountNumber);
+            if (longName != null) {
+                name = longName;
+            } else {
+                System.err.println("Full holder name of account " + accountNumber + " is missing, keeping its start");
+            }
+        }
+        long balanceCents = centsBalance
+                ? buffer.getLong(position + BALANCE)
+                : Money.ofAmount(buffer.getDouble(position + BALANCE));
+
+        Account account = CSVUtility.restoreAccount(ACCOUNT_TYPES[typeCode], String.valueOf(accountNumber), name,
+                Money.toAmount(balanceCents));
+        if (account == null) {
+            return null;
+        }
+
+        account.setBalanceCents(balanceCents);
+        account.setActive((flags & FLAG_ACTIVE) != 0);
+        account.setOpeningDate(LocalDate.ofEpochDay(buffer.getInt(position + OPENING_DATE)));
+        int closingDate = buffer.getInt(position + CLOSING_DATE);
+        account.setClosingDate(closingDate != NO_DATE ? LocalDate.ofEpochDay(closingDate) : null);
+        return account;
+    }
+
+    /**
+     * Gets the start of a holder name that does not fit the record, cut at a character boundary.
+     *
+     * @param bytes the UTF-8 bytes of the full name
+     * @return the UTF-8 bytes to store in the record
+     */
+    private static byte[] namePrefix(byte[] bytes) {
+        int end = MAX_NAME_BYTES;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--; // Do not split a multi-byte character
+        }
+        byte[] truncated = new byte[end];
+        System.arraycopy(bytes, 0, truncated, 0, end);
+        return truncated;
+    }
+
+    /**
+     * Appends the full holder names of accounts to an overflow file and forces them to disk.
+     *
+     * @param path the overflow file
+     * @param accounts the accounts whose names do not fit their record
+     * @throws IOException if the names cannot be written
+     */
+    private static void appendNames(Path path, List<Account> accounts) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel)));
+            for (Account account : accounts) {
+                byte[] name = account.getAccountHolderName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(Integer.parseInt(account.getAccountNumber()));
+                out.writeInt(name.length);
+                out.write(name);
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the overflow file of long holder names. A torn entry at the end is ignored.
+     *
+     * @return the full names by account number, the last entry of an account winning
+     */
+    private Map<Integer, String> loadNames() {
+        Map<Integer, String> names = new HashMap<>();
+        if (!Files.exists(namesPath)) {
+            return names;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(namesPath)))) {
+            long fileSize = Files.size(namesPath);
+            while (true) {
+                int accountNumber;
+                byte[] name;
+                try {
+                    accountNumber = in.readInt();
+                    int length = in.readInt();
+                    if (length < 0 || length > fileSize) {
+                        System.err.println("Invalid entry in " + namesPath + ", ignoring the rest of the file");
+                        break;
+                    }
+                    name = new byte[length];
+                    in.readFully(name);
+                } catch (EOFException e) {
+                    break; // End of file, or an entry torn by a crash
+                }
+                names.put(accountNumber, new String(name, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading long account holder names: " + e.getMessage());
+        }
+        return names;
+    }
+
+    private static byte typeCode(String accountType) {
+        for (byte i = 0; i < ACCOUNT_TYPES.length; i++) {
+            if (ACCOUNT_TYPES[i].equals(accountType)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown account type: " + accountType);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -6,9 +6,8 @@ import src.models.Account;
 import src.models.Transaction;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Provides transaction history services for accounts.
@@ -24,7 +23,8 @@ public class TransactionHistory {
     }
 
     /**
-     * Gets transaction history for an account.
+     * Gets transaction history for an account. Older transactions that are no longer held in
+     * memory are paged back in from the transaction store.
      *
      * @param accountNumber the account number
      * @return the transaction history as a string
@@ -32,7 +32,21 @@ public class TransactionHistory {
      */
     public String getTransactionHistory(String accountNumber) throws InvalidAccountException {
         Account account = accountManager.getAccountByNumber(accountNumber);
-        return account.getTransactionHistory();
+        List<Transaction> transactions = account.getTransactions();
+
+        StringBuilder history = new StringBuilder();
+        history.append("Transaction History for Account ").append(account.getAccountNumber()).append("\n");
+        history.append("----------------------------------------\n");
+
+        if (transactions.isEmpty()) {
+            history.append("No transactions found\n");
+        } else {
+            for (Transaction transaction : transactions) {
+                history.append(transaction.toString()).append("\n");
+            }
+        }
+
+        return history.toString();
     }
 
     /**
@@ -46,15 +60,7 @@ public class TransactionHistory {
      */
     public List<Transaction> getTransactionsInDateRange(String accountNumber, LocalDate startDate, LocalDate endDate)
             throws InvalidAccountException {
-        Account account = accountManager.getAccountByNumber(accountNumber);
-
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay().minusNanos(1);
-
-        return account.getTransactions().stream()
-                .filter(transaction -> !transaction.getTimestamp().isBefore(startDateTime) &&
-                        !transaction.getTimestamp().isAfter(endDateTime))
-                .collect(Collectors.toList());
+        return accountManager.getAccountByNumber(accountNumber).getTransactionLog().inDateRange(startDate, endDate);
     }
 
     /**
@@ -67,15 +73,40 @@ public class TransactionHistory {
      */
     public List<Transaction> getTransactionsByType(String accountNumber, String transactionType)
             throws InvalidAccountException {
-        Account account = accountManager.getAccountByNumber(accountNumber);
+        return accountManager.getAccountByNumber(accountNumber).getTransactionLog().ofType(transactionType);
+    }
 
-        return account.getTransactions().stream()
-                .filter(transaction -> transaction.getType().equalsIgnoreCase(transactionType))
-                .collect(Collectors.toList());
+    /**
+     * Gets transactions of a specific type for an account within a date range.
+     *
+     * @param accountNumber the account number
+     * @param transactionType the transaction type to filter by
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return a list of transactions of the specified type within the date range
+     * @throws InvalidAccountException if the account is not found
+     */
+    public List<Transaction> getTransactionsByTypeInDateRange(String accountNumber, String transactionType,
+                                                              LocalDate startDate, LocalDate endDate)
+            throws InvalidAccountException {
+        return accountManager.getAccountByNumber(accountNumber).getTransactionLog()
+                .ofTypeInDateRange(transactionType, startDate, endDate);
+    }
+
+    /**
+     * Counts the transactions of an account by type.
+     *
+     * @param accountNumber the account number
+     * @return the number of transactions by transaction type
+     * @throws InvalidAccountException if the account is not found
+     */
+    public Map<String, Integer> getTransactionCountsByType(String accountNumber) throws InvalidAccountException {
+        return accountManager.getAccountByNumber(accountNumber).getTransactionLog().countsByType();
     }
 
     /**
      * Gets the last N transactions for an account.
+     * Returns a read-only view, so the cost depends on N and not on the length of the history.
      *
      * @param accountNumber the account number
      * @param count the number of transactions to retrieve
@@ -84,15 +115,6 @@ public class TransactionHistory {
      */
     public List<Transaction> getRecentTransactions(String accountNumber, int count)
             throws InvalidAccountException {
-        Account account = accountManager.getAccountByNumber(accountNumber);
-
-        List<Transaction> transactions = account.getTransactions();
-        int size = transactions.size();
-
-        if (size <= count) {
-            return transactions;
-        } else {
-            return transactions.subList(size - count, size);
-        }
+        return accountManager.getAccountByNumber(accountNumber).getTransactionLog().recent(count);
     }
 }
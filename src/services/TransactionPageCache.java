@@ -0,0 +1,157 @@
+package src.services;
+
+import src.interfaces.TransactionArchive;
+import src.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads cold transactions back from the {@link TransactionStore} in pages of
+ * {@value #PAGE_SIZE} transactions and keeps the recently used pages in memory.
+ * <p>
+ * The pages of all accounts share one heap budget. Pages are evicted in least recently used
+ * order once the estimated size of the cached transactions exceeds the budget, so paging
+ * through the old history of many accounts never holds more than the budget. Reading a
+ * transaction from a cached page costs a map lookup; a miss reads the whole page with one
+ * range read from the store. Ranges longer than a page are read from the store directly and
+ * are not cached.
+ * </p>
+ */
+public class TransactionPageCache implements TransactionArchive {
+    static final int PAGE_SIZE = 64;
+    private static final long BYTES_PER_TRANSACTION = 200; // Transaction object with its timestamp and strings
+    private static final long DEFAULT_BUDGET = 16L * 1024 * 1024;
+
+    private final TransactionStore store;
+    private final Map<PageKey, List<Transaction>> pages = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    private long budget;
+    private long cachedTransactions;
+
+    /**
+     * Creates a page cache with the default budget of 16 MB.
+     *
+     * @param store the store to read the transactions from
+     */
+    public TransactionPageCache(TransactionStore store) {
+        this(store, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a page cache.
+     *
+     * @param store the store to read the transactions from
+     * @param budget the estimated heap size in bytes the cached pages may take
+     */
+    public TransactionPageCache(TransactionStore store, long budget) {
+        this.store = store;
+        this.budget = budget;
+    }
+
+    @Override
+    public List<Transaction> read(String accountNumber, int fromIndex, int toIndex) {
+        if (toIndex - fromIndex > PAGE_SIZE) {
+            return store.getTransactions(accountNumber, fromIndex, toIndex);
+        }
+
+        List<Transaction> transactions = new ArrayList<>(Math.max(0, toIndex - fromIndex));
+        synchronized (this) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                List<Transaction> page = page(accountNumber, i);
+                int offset = i % PAGE_SIZE;
+                if (offset >= page.size()) {
+                    break; // Not in the store
+                }
+                transactions.add(page.get(offset));
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Sets the estimated heap size the cached pages may take, evicting pages if they take more.
+     *
+     * @param budget the budget in bytes
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * Gets the estimated heap size of the cached pages.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long getCachedBytes() {
+        return cachedTransactions * BYTES_PER_TRANSACTION;
+    }
+
+    /**
+     * Drops all cached pages.
+     */
+    public synchronized void clear() {
+        pages.clear();
+        cachedTransactions = 0;
+    }
+
+    /**
+     * Gets the page holding a transaction, reading it from the store if it is not cached or was
+     * cached before the store held the transaction.
+     */
+    private List<Transaction> page(String accountNumber, int index) {
+        PageKey key = new PageKey(accountNumber, index / PAGE_SIZE);
+        List<Transaction> page = pages.get(key);
+        if (page != null && index % PAGE_SIZE < page.size()) {
+            return page;
+        }
+        if (page != null) {
+            cachedTransactions -= page.size(); // A short page read before the rest was stored
+        }
+
+        int start = key.page * PAGE_SIZE;
+        page = store.getTransactions(accountNumber, start, start + PAGE_SIZE);
+        pages.put(key, page);
+        cachedTransactions += page.size();
+        evict();
+        return page;
+    }
+
+    private void evict() {
+        Iterator<List<Transaction>> iterator = pages.values().iterator();
+        while (cachedTransactions * BYTES_PER_TRANSACTION > budget && iterator.hasNext()) {
+            cachedTransactions -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Identifies one page of the history of one account.
+     */
+    private static final class PageKey {
+        private final String accountNumber;
+        private final int page;
+
+        PageKey(String accountNumber, int page) {
+            this.accountNumber = accountNumber;
+            this.page = page;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PageKey)) {
+                return false;
+            }
+            PageKey key = (PageKey) other;
+            return page == key.page && accountNumber.equals(key.accountNumber);
+        }
+
+        @Override
+        public int hashCode() {
+            return accountNumber.hashCode() * 31 + page;
+        }
+    }
+}
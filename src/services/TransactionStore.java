@@ -0,0 +1,535 @@
+package src.services;
+
+import src.models.Transaction;
+import src.models.TransactionDescription;
+import src.models.TransactionType;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists transactions in rolling segment files with a per-account offset index.
+ * <p>
+ * Records are appended to {@code segment-NNNNNN.log}. Every record also appends an
+ * (account number, offset) entry to the matching {@code segment-NNNNNN.idx} file, and the
+ * index files are loaded into memory on startup, so the history of one account is read
+ * by seeking straight to its records instead of scanning every segment.
+ * </p>
+ * <p>
+ * Records of known transaction types store the type and description template as codes, with the
+ * amounts in cents, so that logging a transaction does not build any description text. Such
+ * records have the highest bit of their length header set; records without it hold the type and
+ * description as text and the amounts as doubles, as written by earlier versions. Coded records
+ * that also have the second highest bit set store free-text types and descriptions with an int
+ * byte length, so they are not limited to the 64 KB of {@link DataOutputStream#writeUTF(String)}.
+ * </p>
+ */
+public class TransactionStore {
+    private static final String STORE_DIR = "src/transactions";
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024; // Roll over to a new segment at 64 MB
+    private static final int SEGMENT_SHIFT = 40; // Offsets are packed with the segment number into one long
+    private static final int CODED_RECORD = 0x80000000; // Length header flag of records with coded fields
+    private static final int LONG_TEXT_RECORD = 0x40000000; // Length header flag of records with int text lengths
+    private static final int LENGTH_MASK = ~(CODED_RECORD | LONG_TEXT_RECORD);
+    private static final int FREE_TEXT_TYPE = 0xFF; // Type code of types that are stored as text
+
+    private final Path storeDir;
+    private final long maxSegmentSize;
+    private final Map<String, Positions> index = new HashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new HashMap<>();
+    private int activeSegment;
+    private FileChannel activeLog;
+    private DataOutputStream activeIndex;
+
+    /**
+     * Creates a transaction store in the default directory.
+     */
+    public TransactionStore() {
+        this(Paths.get(STORE_DIR), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a transaction store in the given directory.
+     *
+     * @param storeDir the directory holding the segment files
+     * @param maxSegmentSize the size in bytes after which a new segment is started
+     */
+    public TransactionStore(Path storeDir, long maxSegmentSize) {
+        this.storeDir = storeDir;
+        this.maxSegmentSize = maxSegmentSize;
+        loadIndex();
+    }
+
+    /**
+     * Appends a transaction to the active segment. A transaction that could not be written is
+     * left out of the store, so the transactions of the account keep consecutive indices.
+     *
+     * @param accountNumber the account the transaction belongs to
+     * @param transaction the transaction to persist
+     * @return true if the transaction was written, false if it is not in the store
+     */
+    public synchronized boolean append(String accountNumber, Transaction transaction) {
+        long offset = -1;
+        try {
+            byte[] record = encode(accountNumber, transaction);
+            FileChannel log = getActiveLog();
+            if (log.size() > 0 && log.size() + record.length > maxSegmentSize) {
+                rollSegment();
+                log = getActiveLog();
+            }
+
+            offset = log.size();
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                log.write(buffer);
+            }
+
+            activeIndex.writeUTF(accountNumber);
+            activeIndex.writeLong(offset);
+            activeIndex.flush();
+            positionsFor(accountNumber).add(pack(activeSegment, offset));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing transaction for account " + accountNumber + ": " + e.getMessage());
+            if (offset >= 0) {
+                discardTail(offset);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads the persisted transactions of an account, oldest first.
+     *
+     * @param accountNumber the account number
+     * @return the transactions of the account
+     */
+    public synchronized List<Transaction> getTransactions(String accountNumber) {
+        return getTransactions(accountNumber, 0, getTransactionCount(accountNumber));
+    }
+
+    /**
+     * Reads a range of the persisted transactions of an account, oldest first.
+     * Seeks straight to the records of the range through the offset index.
+     *
+     * @param accountNumber the account number
+     * @param fromIndex the index of the first transaction, inclusive
+     * @param toIndex the index of the last transaction, exclusive; clamped to the number of transactions
+     * @return the transactions in the range
+     */
+    public synchronized List<Transaction> getTransactions(String accountNumber, int fromIndex, int toIndex) {
+        Positions positions = index.get(accountNumber);
+        if (positions == null || fromIndex < 0 || fromIndex >= Math.min(toIndex, positions.size)) {
+            return new ArrayList<>();
+        }
+
+        int end = Math.min(toIndex, positions.size);
+        List<Transaction> transactions = new ArrayList<>(end - fromIndex);
+        try {
+            for (int i = fromIndex; i < end; i++) {
+                long position = positions.values[i];
+                transactions.add(read(segmentOf(position), offsetOf(position)));
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading transactions for account " + accountNumber + ": " + e.getMessage());
+        }
+        return transactions;
+    }
+
+    /**
+     * Gets the number of persisted transactions of an account.
+     *
+     * @param accountNumber the account number
+     * @return the number of transactions
+     */
+    public synchronized int getTransactionCount(String accountNumber) {
+        Positions positions = index.get(accountNumber);
+        return positions == null ? 0 : positions.size;
+    }
+
+    /**
+     * Gets the numbers of all accounts with persisted transactions.
+     *
+     * @return a copy of the account numbers
+     */
+    public synchronized Set<String> getAccountNumbers() {
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * Closes all open segment files.
+     */
+    public synchronized void close() {
+        try {
+            if (activeIndex != null) {
+                activeIndex.close();
+                activeIndex = null;
+            }
+            if (activeLog != null) {
+                activeLog.close();
+                activeLog = null;
+            }
+            for (FileChannel channel : readChannels.values()) {
+                channel.close();
+            }
+            readChannels.clear();
+        } catch (IOException e) {
+            System.err.println("Error closing transaction store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the index files of all segments and recovers index entries missing
+     * from the tail of the newest segment.
+     */
+    private void loadIndex() {
+        try {
+            Files.createDirectories(storeDir);
+            activeSegment = 0;
+            while (Files.exists(logPath(activeSegment + 1))) {
+                activeSegment++;
+            }
+
+            long indexedEnd = 0;
+            for (int segment = 0; segment <= activeSegment; segment++) {
+                indexedEnd = loadSegmentIndex(segment);
+            }
+            recoverIndexTail(indexedEnd);
+        } catch (IOException e) {
+            System.err.println("Error loading transaction index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads one segment index file.
+     *
+     * @param segment the segment number
+     * @return the log offset right after the last indexed record
+     * @throws IOException if the index cannot be read
+     */
+    private long loadSegmentIndex(int segment) throws IOException {
+        Path indexPath = indexPath(segment);
+        if (!Files.exists(indexPath)) {
+            return 0;
+        }
+
+        long lastOffset = -1;
+        String lastAccount = null;
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            while (true) {
+                String accountNumber;
+                long offset;
+                try {
+                    accountNumber = in.readUTF();
+                    offset = in.readLong();
+                } catch (EOFException e) {
+                    break; // End of index, or an entry torn by a crash
+                }
+                positionsFor(accountNumber).add(pack(segment, offset));
+                lastOffset = offset;
+                lastAccount = accountNumber;
+                validBytes += Short.BYTES + accountNumber.getBytes(StandardCharsets.UTF_8).length + Long.BYTES;
+            }
+        }
+
+        if (Files.size(indexPath) > validBytes) {
+            // Cut a torn entry so that entries appended later stay aligned
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+            }
+        }
+
+        if (lastAccount == null) {
+            return 0;
+        }
+        return lastOffset + Integer.BYTES + recordLength(segment, lastOffset);
+    }
+
+    /**
+     * Re-indexes records of the active segment written after the last index entry,
+     * which happens when the process stops between the log write and the index write.
+     *
+     * @param indexedEnd the log offset right after the last indexed record
+     * @throws IOException if the segment cannot be read
+     */
+    private void recoverIndexTail(long indexedEnd) throws IOException {
+        Path logPath = logPath(activeSegment);
+        if (!Files.exists(logPath) || Files.size(logPath) <= indexedEnd) {
+            return;
+        }
+
+        long offset = indexedEnd;
+        long size = Files.size(logPath);
+        DataOutputStream indexOut = getActiveIndex();
+        while (offset + Integer.BYTES <= size) {
+            int length = recordLength(activeSegment, offset);
+            if (offset + Integer.BYTES + length > size) {
+                break; // Torn record at the end of the log
+            }
+            String accountNumber = decodeAccountNumber(readRecordBytes(activeSegment, offset, length));
+            indexOut.writeUTF(accountNumber);
+            indexOut.writeLong(offset);
+            positionsFor(accountNumber).add(pack(activeSegment, offset));
+            offset += Integer.BYTES + length;
+        }
+        indexOut.flush();
+
+        if (offset < size) {
+            getActiveLog().truncate(offset); // Drop the torn record so new records stay readable
+        }
+    }
+
+    /**
+     * Cuts a record that was not completely written from the end of the active segment, so
+     * that it is not recovered into the index on the next start.
+     *
+     * @param offset the offset of the record
+     */
+    private void discardTail(long offset) {
+        try {
+            getActiveLog().truncate(offset);
+        } catch (IOException e) {
+            System.err.println("Error discarding unwritten transaction: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a new segment.
+     *
+     * @throws IOException if the current segment cannot be closed
+     */
+    private void rollSegment() throws IOException {
+        activeLog.close();
+        activeLog = null;
+        if (activeIndex != null) {
+            activeIndex.close();
+            activeIndex = null;
+        }
+        activeSegment++;
+    }
+
+    private FileChannel getActiveLog() throws IOException {
+        if (activeLog == null) {
+            activeLog = FileChannel.open(logPath(activeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            activeLog.position(activeLog.size());
+        }
+        if (activeIndex == null) {
+            getActiveIndex();
+        }
+        return activeLog;
+    }
+
+    private DataOutputStream getActiveIndex() throws IOException {
+        if (activeIndex == null) {
+            activeIndex = new DataOutputStream(Files.newOutputStream(indexPath(activeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        }
+        return activeIndex;
+    }
+
+    private FileChannel getReadChannel(int segment) throws IOException {
+        FileChannel channel = readChannels.get(segment);
+        if (channel == null) {
+            channel = FileChannel.open(logPath(segment), StandardOpenOption.READ);
+            readChannels.put(segment, channel);
+        }
+        return channel;
+    }
+
+    private Transaction read(int segment, long offset) throws IOException {
+        int header = recordHeader(segment, offset);
+        if ((header & CODED_RECORD) == 0) {
+            return decode(readRecordBytes(segment, offset, header));
+        }
+        return decodeCoded(readRecordBytes(segment, offset, header & LENGTH_MASK),
+                (header & LONG_TEXT_RECORD) != 0);
+    }
+
+    private int recordLength(int segment, long offset) throws IOException {
+        int header = recordHeader(segment, offset);
+        return (header & CODED_RECORD) != 0 ? header & LENGTH_MASK : header;
+    }
+
+    private int recordHeader(int segment, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(getReadChannel(segment), header, offset);
+        return header.getInt(0);
+    }
+
+    private byte[] readRecordBytes(int segment, long offset, int length) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(getReadChannel(segment), body, offset + Integer.BYTES);
+        return body.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of transaction segment");
+            }
+        }
+    }
+
+    /**
+     * Encodes a transaction as a length-prefixed record with coded fields.
+     */
+    private static byte[] encode(String accountNumber, Transaction transaction) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // Length placeholder
+        out.writeUTF(accountNumber);
+        LocalDateTime timestamp = transaction.getTimestamp();
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+        TransactionType type = transaction.getTransactionType();
+        if (type != null) {
+            out.writeByte(type.getCode());
+        } else {
+            out.writeByte(FREE_TEXT_TYPE);
+            writeText(out, transaction.getType());
+        }
+        out.writeLong(transaction.getAmountCents());
+        out.writeLong(transaction.getBalanceAfterCents());
+        TransactionDescription template = transaction.getDescriptionTemplate();
+        out.writeByte(template.getCode());
+        if (template == TransactionDescription.TEXT) {
+            writeText(out, transaction.getDescription());
+        } else {
+            out.writeLong(transaction.getDescriptionArgument());
+        }
+        out.flush();
+
+        byte[] record = bytes.toByteArray();
+        if (record.length - Integer.BYTES > LENGTH_MASK) {
+            throw new IOException("Transaction record too long: " + record.length + " bytes");
+        }
+        ByteBuffer.wrap(record).putInt(0, (record.length - Integer.BYTES) | CODED_RECORD | LONG_TEXT_RECORD);
+        return record;
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in, boolean longText) throws IOException {
+        if (!longText) {
+            return in.readUTF(); // Records written before text lengths were ints
+        }
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid text length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Transaction decodeCoded(byte[] record, boolean longText) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readUTF(); // Account number, already known from the index
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        int typeCode = in.readUnsignedByte();
+        TransactionType type = typeCode == FREE_TEXT_TYPE ? null : TransactionType.fromCode(typeCode);
+        if (typeCode != FREE_TEXT_TYPE && type == null) {
+            throw new IOException("Unknown transaction type code: " + typeCode);
+        }
+        String typeLabel = type == null ? readText(in, longText) : type.getLabel();
+        long amountCents = in.readLong();
+        long balanceAfterCents = in.readLong();
+        TransactionDescription template;
+        try {
+            template = TransactionDescription.fromCode(in.readUnsignedByte());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+        if (template == TransactionDescription.TEXT) {
+            return new Transaction(timestamp, typeLabel, amountCents, readText(in, longText), balanceAfterCents);
+        }
+        long argument = in.readLong();
+        if (type == null) {
+            return new Transaction(timestamp, typeLabel, amountCents, template.render(argument), balanceAfterCents);
+        }
+        return new Transaction(timestamp, type, amountCents, template, argument, balanceAfterCents);
+    }
+
+    private static Transaction decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readUTF(); // Account number, already known from the index
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        String type = in.readUTF();
+        double amount = in.readDouble();
+        String description = in.readUTF();
+        double balanceAfter = in.readDouble();
+        return new Transaction(timestamp, type, amount, description, balanceAfter);
+    }
+
+    private static String decodeAccountNumber(byte[] record) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(record)).readUTF();
+    }
+
+    private Positions positionsFor(String accountNumber) {
+        return index.computeIfAbsent(accountNumber, key -> new Positions());
+    }
+
+    private Path logPath(int segment) {
+        return storeDir.resolve(String.format("segment-%06d.log", segment));
+    }
+
+    private Path indexPath(int segment) {
+        return storeDir.resolve(String.format("segment-%06d.idx", segment));
+    }
+
+    private static long pack(int segment, long offset) {
+        return ((long) segment << SEGMENT_SHIFT) | offset;
+    }
+
+    private static int segmentOf(long position) {
+        return (int) (position >>> SEGMENT_SHIFT);
+    }
+
+    private static long offsetOf(long position) {
+        return position & ((1L << SEGMENT_SHIFT) - 1);
+    }
+
+    /**
+     * Growable array of packed record positions of one account.
+     */
+    private static final class Positions {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package src.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from the three-character substrings (trigrams) of lower-cased names to the
+ * ids of the names that contain them.
+ * <p>
+ * A name containing a query contains every trigram of the query, so intersecting the posting
+ * lists of the query trigrams gives a small set of candidates that includes every match.
+ * Callers check the candidates against the real predicate to drop false positives. Ids must
+ * be added in ascending order, which keeps every posting list sorted.
+ * </p>
+ */
+public class TrigramIndex {
+    /**
+     * Shortest query the index can answer; shorter queries have no trigram.
+     */
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int lastId = -1;
+
+    /**
+     * Adds a name to the index.
+     *
+     * @param id the id of the name, greater than every id added before
+     * @param lowerCaseName the lower-cased name
+     */
+    public void add(int id, String lowerCaseName) {
+        if (id <= lastId) {
+            throw new IllegalArgumentException("Ids must be added in ascending order");
+        }
+        lastId = id;
+
+        for (int i = 0; i + MIN_QUERY_LENGTH <= lowerCaseName.length(); i++) {
+            Postings list = postings.computeIfAbsent(trigram(lowerCaseName, i), key -> new Postings());
+            list.add(id); // Adds the id once even if the trigram repeats in the name
+        }
+    }
+
+    /**
+     * Finds the ids of the names that contain every trigram of the query.
+     *
+     * @param lowerCaseQuery the lower-cased query, at least {@link #MIN_QUERY_LENGTH} characters long
+     * @return the candidate ids in ascending order
+     */
+    public int[] candidates(String lowerCaseQuery) {
+        if (lowerCaseQuery.length() < MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query too short for a trigram search");
+        }
+
+        int trigramCount = lowerCaseQuery.length() - MIN_QUERY_LENGTH + 1;
+        Postings[] lists = new Postings[trigramCount];
+        for (int i = 0; i < trigramCount; i++) {
+            lists[i] = postings.get(trigram(lowerCaseQuery, i));
+            if (lists[i] == null) {
+                return new int[0]; // No name contains this trigram
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size)); // Drive the intersection from the rarest trigram
+
+        int[] result = new int[lists[0].size];
+        int count = 0;
+        for (int i = 0; i < lists[0].size; i++) {
+            int id = lists[0].ids[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = Arrays.binarySearch(lists[j].ids, 0, lists[j].size, id) >= 0;
+            }
+            if (inAll) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Removes all names from the index.
+     */
+    public void clear() {
+        postings.clear();
+        lastId = -1;
+    }
+
+    /**
+     * Packs the three characters at the given position into one key.
+     */
+    private static long trigram(String text, int position) {
+        return ((long) text.charAt(position) << 32)
+                | ((long) text.charAt(position + 1) << 16)
+                | text.charAt(position + 2);
+    }
+
+    /**
+     * Sorted, growable list of ids.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
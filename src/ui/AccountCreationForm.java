@@ -231,8 +231,9 @@ public class AccountCreationForm extends JFrame {
                 throw new IllegalArgumentException("Unknown account type");
         }
 
-        AccountManager.getInstance().addAccount(newAccount);
-        AccountManager.getInstance().saveAccounts();
+        if (!AccountManager.getInstance().addAccount(newAccount)) { // Journals the new account
+            throw new IllegalStateException("Account number " + newAccount.getAccountNumber() + " is already in use");
+        }
 
         String accountNumber = newAccount.getAccountNumber();
         JOptionPane.showMessageDialog(this,
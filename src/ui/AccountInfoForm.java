@@ -4,6 +4,7 @@ import src.exceptions.InvalidAccountException;
 import src.models.Account;
 import src.services.AccountManager;
 import src.services.ReportGenerator;
+import src.services.TransactionHistory;
 
 import javax.swing.*;
 import java.awt.*;
@@ -32,6 +33,7 @@ public class AccountInfoForm extends JFrame {
 
     private final AccountManager accountManager;
     private final ReportGenerator reportGenerator;
+    private final TransactionHistory transactionHistory;
 
     /**
      * Creates a new account information form
@@ -39,6 +41,7 @@ public class AccountInfoForm extends JFrame {
     public AccountInfoForm() {
         this.accountManager = AccountManager.getInstance();
         this.reportGenerator = new ReportGenerator();
+        this.transactionHistory = new TransactionHistory();
 
         setupUI();
         setupActionListeners();
@@ -171,8 +174,7 @@ public class AccountInfoForm extends JFrame {
                         throw new IllegalArgumentException("Account number is required");
                     }
 
-                    Account account = accountManager.getAccountByNumber(accountNumber);
-                    detailsArea.setText(account.getTransactionHistory());
+                    detailsArea.setText(transactionHistory.getTransactionHistory(accountNumber));
                 } catch (Exception ex) {
                     JOptionPane.showMessageDialog(AccountInfoForm.this,
                             "Error: " + ex.getMessage(), "View Transactions Failed", JOptionPane.ERROR_MESSAGE);
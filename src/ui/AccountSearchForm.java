@@ -2,9 +2,12 @@ package src.ui;
 
 import src.exceptions.InvalidAmountException;
 import src.models.Account;
+import src.models.Money;
 import src.services.AccountManager;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -14,9 +17,11 @@ import java.awt.event.MouseEvent;
 import java.util.List;
 
 /**
- * Form for searching accounts by name or number
+ * Form for searching accounts by name, similar name or number
  */
 public class AccountSearchForm extends JFrame {
+    private static final int MAX_SUGGESTIONS = 8;
+
     private JPanel mainPanel;
     private JTextField searchField;
     private JComboBox<String> searchTypeComboBox;
@@ -25,6 +30,8 @@ public class AccountSearchForm extends JFrame {
     private JButton backButton;
     private JLabel searchLabel;
     private JScrollPane tableScrollPane;
+    private JPopupMenu suggestionPopup;
+    private boolean selectingSuggestion; // Suppresses suggestions while a chosen one is filled in
 
     private final AccountManager accountManager;
     private final DefaultTableModel tableModel;
@@ -54,10 +61,12 @@ public class AccountSearchForm extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 
         searchLabel = new JLabel("Search by:");
-        searchTypeComboBox = new JComboBox<>(new String[]{"Account Number", "Account Holder Name"});
+        searchTypeComboBox = new JComboBox<>(new String[]{"Account Number", "Account Holder Name", "Similar Holder Name"});
         searchField = new JTextField(20);
         searchButton = new JButton("Search");
         backButton = new JButton("Back");
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false); // Keep typing in the search field
 
         String[] columnNames = {"Account Number", "Account Holder", "Account Type", "Balance", "Status"};
         tableModel.setColumnIdentifiers(columnNames);
@@ -130,12 +139,74 @@ public class AccountSearchForm extends JFrame {
                 performSearch();
             }
         });
+
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                showSuggestions();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                showSuggestions();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not change the text
+            }
+        });
+    }
+
+    /**
+     * Shows account suggestions for the text typed so far below the search field
+     */
+    private void showSuggestions() {
+        suggestionPopup.setVisible(false);
+        suggestionPopup.removeAll();
+        String text = searchField.getText();
+        if (selectingSuggestion || text.trim().isEmpty() || !searchField.isShowing()) {
+            return;
+        }
+
+        List<Account> suggestions = accountManager.getCompletions(text, MAX_SUGGESTIONS);
+        for (final Account account : suggestions) {
+            JMenuItem item = new JMenuItem(account.getAccountNumber() + " - " + account.getAccountHolderName());
+            item.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    selectSuggestion(account);
+                }
+            });
+            suggestionPopup.add(item);
+        }
+
+        if (!suggestions.isEmpty()) {
+            suggestionPopup.show(searchField, 0, searchField.getHeight());
+        }
+    }
+
+    /**
+     * Fills in the chosen suggestion and searches for its account
+     *
+     * @param account the suggested account
+     */
+    private void selectSuggestion(Account account) {
+        selectingSuggestion = true;
+        try {
+            searchTypeComboBox.setSelectedIndex(0);
+            searchField.setText(account.getAccountNumber());
+        } finally {
+            selectingSuggestion = false;
+        }
+        performSearch();
     }
 
     /**
      * Performs the search based on the selected criteria
      */
     private void performSearch() {
+        suggestionPopup.setVisible(false);
         String searchText = searchField.getText().trim();
         if (searchText.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -156,8 +227,10 @@ public class AccountSearchForm extends JFrame {
                             "No accounts found with that number", "Search Results", JOptionPane.INFORMATION_MESSAGE);
                     return;
                 }
-            } else {
+            } else if (searchTypeComboBox.getSelectedIndex() == 1) {
                 results = accountManager.getAccountsByName(searchText);
+            } else {
+                results = accountManager.getAccountsByFuzzyName(searchText); // Tolerates typos, closest first
             }
 
             if (results.isEmpty()) {
@@ -169,7 +242,7 @@ public class AccountSearchForm extends JFrame {
                             account.getAccountNumber(),
                             account.getAccountHolderName(),
                             account.getAccountType(),
-                            String.format("₱%.2f", account.getBalance()),
+                            "₱" + Money.format(account.getBalanceCents()),
                             account.isActive() ? "Active" : "Closed"
                     });
                 }